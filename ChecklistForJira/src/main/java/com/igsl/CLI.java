@@ -17,9 +17,14 @@ public class CLI {
 		GET_CLOUD_PROJECTS(GET_CLOUD_PROJECT_OPTIONS, GET_CLOUD_PROJECT_OPTION),
 		CONVERT_CSV(CONVERT_CSV_OPTIONS, CONVERT_CSV_OPTION),
 		EXPORT_FIELD(EXPORT_FIELD_OPTIONS, EXPORT_FIELD_OPTION), 
+		EXPORT_CONTEXT(EXPORT_CONTEXT_OPTIONS, EXPORT_CONTEXT_OPTION), 
 		TRIGGER_EXPORT(TRIGGER_EXPORT_OPTIONS, TRIGGER_EXPORT_OPTION),
 		EXPORT_USAGE(EXPORT_USAGE_OPTIONS, EXPORT_USAGE_OPTION),
-		EXPORT_WORKFLOW(EXPORT_WORKFLOW_OPTIONS, EXPORT_WORKFLOW_OPTION);
+		EXPORT_WORKFLOW(EXPORT_WORKFLOW_OPTIONS, EXPORT_WORKFLOW_OPTION),
+		BENCHMARK_GZ(BENCHMARK_GZ_OPTIONS, BENCHMARK_GZ_OPTION),
+		BENCHMARK_ENGINE(BENCHMARK_ENGINE_OPTIONS, BENCHMARK_ENGINE_OPTION),
+		BENCHMARK_PAGING(BENCHMARK_PAGING_OPTIONS, BENCHMARK_PAGING_OPTION),
+		SIMULATE_EXPORT(SIMULATE_EXPORT_OPTIONS, SIMULATE_EXPORT_OPTION);
 		private Options options;
 		private Option option;
 		CLIOptions(Options options, Option option) {
@@ -82,6 +87,16 @@ public class CLI {
 			.addOption(CONFIG_OPTION)
 			.addOption(EXPORT_FIELD_OPTION);
 	
+	public static final Option EXPORT_CONTEXT_OPTION = Option.builder()
+			.desc("Export contexts of Checklist for Jira custom fields from database, in the format of bypass CSV. ")
+			.option("ec")
+			.longOpt("exportContext")
+			.required()
+			.build();
+	public static final Options EXPORT_CONTEXT_OPTIONS = new Options()
+			.addOption(CONFIG_OPTION)
+			.addOption(EXPORT_CONTEXT_OPTION);
+	
 	public static final Option FIELD_LIST_OPTION = Option.builder()
 			.desc("Path of ChecklistField.json exported using exportField. ")
 			.option("f")
@@ -102,12 +117,22 @@ public class CLI {
 			.longOpt("bypassTrigger")
 			.hasArg()
 			.build();
-	public static final Options TRIGGER_EXPORT_OPTIONS = new Options()
-			.addOption(CONFIG_OPTION)
-			.addOption(TRIGGER_EXPORT_OPTION)
-			.addOption(FIELD_LIST_OPTION)
-			.addOption(BYPASS_TRIGGER_OPTION);
-
+	public static final Option JOURNAL_OPTION = Option.builder()
+			.desc("Journal file recording export state of each context. Re-run with the same file to resume an interrupted export. ")
+			.option("j")
+			.longOpt("journal")
+			.hasArg()
+			.build();
+	public static final Option DB_CONTEXTS_OPTION = Option.builder()
+			.desc("Find contexts from database instead of custom field configuration pages. ")
+			.option("dc")
+			.longOpt("dbContexts")
+			.build();
+	public static final Option PIPELINE_OPTION = Option.builder()
+			.desc("Export usage of each context as soon as it is verified, as exportUsage does. ")
+			.option("pu")
+			.longOpt("pipelineUsage")
+			.build();
 	public static final Option WF_FILE_OPTION = Option.builder()
 			.desc("File containing workflow information exported using workflowExport. ")
 			.option("w")
@@ -121,6 +146,22 @@ public class CLI {
 			.required()
 			.hasArg()
 			.build();	
+	public static final Option GZ_CATALOG_OPTION = Option.builder()
+			.desc("Catalog file of processed .gz files. Unchanged .gz files are not processed again. ")
+			.option("gc")
+			.longOpt("gzCatalog")
+			.hasArg()
+			.build();
+	public static final Options TRIGGER_EXPORT_OPTIONS = new Options()
+			.addOption(CONFIG_OPTION)
+			.addOption(TRIGGER_EXPORT_OPTION)
+			.addOption(FIELD_LIST_OPTION)
+			.addOption(BYPASS_TRIGGER_OPTION)
+			.addOption(JOURNAL_OPTION)
+			.addOption(DB_CONTEXTS_OPTION)
+			.addOption(PIPELINE_OPTION)
+			.addOption(WF_FILE_OPTION)
+			.addOption(GZ_CATALOG_OPTION);
 	public static final Option EXPORT_USAGE_OPTION = Option.builder()
 			.desc(	"Export two CSV files that contain checklist templates and their association with projects. ")
 			.option("u")
@@ -132,7 +173,8 @@ public class CLI {
 			.addOption(EXPORT_USAGE_OPTION)
 			.addOption(FIELD_LIST_OPTION)
 			.addOption(GZ_DIR_OPTION)
-			.addOption(WF_FILE_OPTION);
+			.addOption(WF_FILE_OPTION)
+			.addOption(GZ_CATALOG_OPTION);
 
 	public static final Option EXPORT_WORKFLOW_OPTION = Option.builder()
 			.desc("Export workflows that may contain Checklist for Jira post-functions.")
@@ -145,6 +187,53 @@ public class CLI {
 			.addOption(CONFIG_OPTION)
 			.addOption(EXPORT_WORKFLOW_OPTION);
 	
+	public static final Option BENCHMARK_GZ_OPTION = Option.builder()
+			.desc("Compare parsing .gz files by extracting to disk and by streaming. ")
+			.option("bg")
+			.longOpt("benchmarkGZ")
+			.required()
+			.build();
+	
+	public static final Options BENCHMARK_GZ_OPTIONS = new Options()
+			.addOption(CONFIG_OPTION)
+			.addOption(BENCHMARK_GZ_OPTION)
+			.addOption(GZ_DIR_OPTION);
+	
+	public static final Option BENCHMARK_ENGINE_OPTION = Option.builder()
+			.desc("Compare memory and CPU used per context by export engines. No export is triggered. ")
+			.option("be")
+			.longOpt("benchmarkEngine")
+			.required()
+			.build();
+	
+	public static final Options BENCHMARK_ENGINE_OPTIONS = new Options()
+			.addOption(CONFIG_OPTION)
+			.addOption(BENCHMARK_ENGINE_OPTION)
+			.addOption(FIELD_LIST_OPTION);
+	
+	public static final Option BENCHMARK_PAGING_OPTION = Option.builder()
+			.desc("Compare parsing REST API pages as JsonNode tree and by streaming, using generated pages. ")
+			.option("bp")
+			.longOpt("benchmarkPaging")
+			.required()
+			.build();
+	
+	public static final Options BENCHMARK_PAGING_OPTIONS = new Options()
+			.addOption(CONFIG_OPTION)
+			.addOption(BENCHMARK_PAGING_OPTION);
+	
+	public static final Option SIMULATE_EXPORT_OPTION = Option.builder()
+			.desc("Simulate triggerExport run time under different settings using export history and recommend settings. ")
+			.option("se")
+			.longOpt("simulateExport")
+			.required()
+			.build();
+	
+	public static final Options SIMULATE_EXPORT_OPTIONS = new Options()
+			.addOption(CONFIG_OPTION)
+			.addOption(SIMULATE_EXPORT_OPTION)
+			.addOption(JOURNAL_OPTION);
+	
 	public static void printHelp() {
 		HelpFormatter hf = new HelpFormatter();
 		String command = "java -jar ChecklistForJira-[version].jar";
@@ -6,6 +6,7 @@ import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
@@ -23,15 +24,14 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -48,7 +48,6 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import org.apache.ibatis.logging.log4j2.Log4j2Impl;
@@ -82,13 +81,14 @@ import com.igsl.json.ChecklistTemplate;
 import com.igsl.json.JsonChecklistItem;
 import com.igsl.mybatis.CustomField;
 import com.igsl.mybatis.DataMapper;
+import com.igsl.mybatis.FieldContext;
 import com.igsl.mybatis.IssueType;
 import com.igsl.mybatis.Project;
-import com.igsl.mybatis.Source;
 import com.igsl.mybatis.Workflow;
 import com.igsl.postfunction.ChecklistFunction;
-import com.igsl.rest.ClientPool;
 import com.igsl.rest.JiraObject;
+import com.igsl.rest.RateLimiter;
+import com.igsl.rest.RestClient;
 import com.igsl.rest.RestUtil;
 
 /**
@@ -112,6 +112,7 @@ public class ChecklistForJira {
 	private static final int BUFFER_SIZE = 10240;	
 	private static final int MAX_COL_SIZE = 20000;	// Huge text is not supported well by Excel
 	private static final int MAX_TEMPLATE_NAME_LENGTH = 50;	// Max Checklist for Jira template name length
+	private static final Pattern GZ_PATTERN = Pattern.compile("customfield_([0-9]+)-([0-9]+)-([0-9]+)\\.gz");
 	
 	public static SqlSessionFactory setupMyBatis(Config conf) throws Exception {
 		PooledDataSource ds = new PooledDataSource();
@@ -150,6 +151,22 @@ public class ChecklistForJira {
 		return result;
 	}
 
+	/**
+	 * Contexts of all Checklist for Jira fields in one query.
+	 * @return Map of custom field ID to context IDs.
+	 */
+	private static Map<String, List<String>> getChecklistContexts(Config conf) throws Exception {
+		Map<String, List<String>> result = new LinkedHashMap<>();
+		SqlSessionFactory factory = setupMyBatis(conf);
+		try (SqlSession session = factory.openSession()) {
+			DataMapper mapper = session.getMapper(DataMapper.class);
+			for (FieldContext context : mapper.getChecklistContexts()) {
+				result.computeIfAbsent(context.getFieldId(), k -> new ArrayList<>()).add(context.getContextId());
+			}
+		}
+		return result;
+	}
+
 	private static List<String> splitChecklistTemplate(String template) {
 		List<String> result = new ArrayList<>();
 		while (template.length() > 0) {
@@ -193,19 +210,22 @@ public class ChecklistForJira {
 		if (fullName.length() > MAX_TEMPLATE_NAME_LENGTH) {
 			fullName = fullName.substring(0, MAX_TEMPLATE_NAME_LENGTH);
 		}
-		String result = fullName;
-		int count = 0;
-		while (nameList.contains(result)) {
-			count++;
-			String suffix = String.format("-%02d", Integer.toString(count));
-			if (result.length() + suffix.length() > MAX_TEMPLATE_NAME_LENGTH) {
-				result = fullName.substring(0, result.length() - suffix.length()) + suffix;
-			} else {
-				result = result + suffix;
+		// Names are handed out in call order, so callers must call this in a fixed order for repeatable output
+		synchronized (nameList) {
+			String result = fullName;
+			int count = 0;
+			while (nameList.contains(result)) {
+				count++;
+				String suffix = String.format("-%02d", count);
+				if (fullName.length() + suffix.length() > MAX_TEMPLATE_NAME_LENGTH) {
+					result = fullName.substring(0, MAX_TEMPLATE_NAME_LENGTH - suffix.length()) + suffix;
+				} else {
+					result = fullName + suffix;
+				}
 			}
+			nameList.add(result);
+			return result;
 		}
-		nameList.add(result);
-		return result;
 	}
 	
 	public static Path gunzip(Path extractDir, Path gzFile) throws Exception {
@@ -226,6 +246,33 @@ public class ChecklistForJira {
 		return out;
 	}
 	
+	/**
+	 * Open GZ file for reading without extracting it to disk.
+	 * @param gzFile GZ file.
+	 * @param bufferSize Inflater buffer size.
+	 */
+	public static InputStream openGZ(Path gzFile, int bufferSize) throws IOException {
+		return new GZIPInputStream(Files.newInputStream(gzFile), bufferSize);
+	}
+	
+	/**
+	 * Parse GZ file using reader.
+	 * If extractDir is null, the file is parsed directly from GZIPInputStream.
+	 * Otherwise the file is extracted into extractDir before parsing.
+	 */
+	public static <T> T readGZ(ObjectReader reader, Path gzFile, Path extractDir, int bufferSize) throws Exception {
+		if (extractDir == null) {
+			try (InputStream in = openGZ(gzFile, bufferSize)) {
+				return reader.readValue(in);
+			}
+		}
+		Path extractedFile = gunzip(extractDir, gzFile);
+		try (FileInputStream in = new FileInputStream(extractedFile.toFile())) {
+			Log.info(LOGGER, "Processing extracted file [" + extractedFile + "]");
+			return reader.readValue(in);
+		}
+	}
+	
 	private static List<ChecklistFunction> parseWorkflowChecklistPostFunctions(String workflowName, String source) throws Exception {
 		List<ChecklistFunction> result = new ArrayList<>();
 		final String XPATH_CHECKLISTFORJIRA = "//post-functions/function[arg[@name='class.name'][text()='com.okapya.jira.customfields.workflow.functions.ChecklistFunction']]";
@@ -302,7 +349,7 @@ public class ChecklistForJira {
 		printer.printRecord(data);
 	}
 
-	private static void recordTemplateUsage(
+	public static void recordTemplateUsage(
 			CSVPrinter printer, 
 			String source, 
 			String projectKey,
@@ -322,7 +369,7 @@ public class ChecklistForJira {
 		printer.printRecord(data);
 	}
 	
-	private static void processWorkflow(
+	public static void processWorkflow(
 			Workflow workflow, 
 			Map<String, CustomField> fieldMap,
 			CSVPrinter template,
@@ -402,268 +449,296 @@ public class ChecklistForJira {
 		} // For each post-function
 	}
 	
+	/**
+	 * Get chunk number from GZ file name.
+	 */
+	public static int getGZChunk(Path gzFile) {
+		Matcher m = GZ_PATTERN.matcher(gzFile.getFileName().toString());
+		if (m.matches()) {
+			return Integer.parseInt(m.group(3));
+		}
+		return -1;
+	}
+	
+	/**
+	 * Get GZCatalog key from GZ file name.
+	 */
+	private static long getGZCatalogKey(Path gzFile) {
+		Matcher m = GZ_PATTERN.matcher(gzFile.getFileName().toString());
+		if (m.matches()) {
+			try {
+				return GZCatalog.getKey(
+						Long.parseLong(m.group(1)), Long.parseLong(m.group(2)), Long.parseLong(m.group(3)));
+			} catch (NumberFormatException nfex) {
+				// Ignore
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Parse a GZ file and extract the data needed for template and usage CSVs.
+	 * If catalog is provided, unchanged files are not inflated again.
+	 * Returns null if the file cannot be processed.
+	 */
+	private static GZSummary summarizeGZ(
+			ObjectReader reader, Path file, Path extractDir, Config conf, GZCatalog catalog) {
+		Log.info(LOGGER, "Processing GZip file [" + file + "]");
+		try {
+			long catalogKey = getGZCatalogKey(file);
+			if (catalog != null) {
+				GZSummary cached = catalog.get(catalogKey, file);
+				if (cached != null) {
+					Log.info(LOGGER, "GZip file [" + file + "] unchanged, using catalog");
+					return cached;
+				}
+			}
+			ChecklistForJiraData data = readGZ(reader, file, extractDir, conf.getGzBufferSize());
+			GZSummary summary = new GZSummary();
+			summary.setFileName(file.getFileName().toString());
+			summary.setType(data.getType());
+			switch (data.getType()) {
+			case ChecklistForJiraData.TYPE_MANIFEST:
+				Log.info(LOGGER, "Processing manifest [" + file + "]");
+				summary.setContextId(String.valueOf(data.getFieldConfig().getId()));
+				summary.setContextName(data.getFieldConfig().getName());
+				List<ChecklistItem> checklistItems = new ArrayList<>();
+				// Global items
+				if (data.getGlobalItems() != null) {
+					checklistItems.addAll(data.getGlobalItems());
+				}
+				// Default local items
+				if (data.getDefaultLocalItems() != null) {
+					checklistItems.addAll(data.getDefaultLocalItems());
+				}
+				// Convert checklistItems to new format
+				summary.setChecklist(ChecklistItem.convert(checklistItems));
+				summary.getIssueTypes().addAll(data.getFieldConfig().getIssueTypes().values());
+				summary.getProjects().addAll(data.getFieldConfig().getProjects().values());
+				break;
+			case ChecklistForJiraData.TYPE_TEMPLATE: 
+				Log.info(LOGGER, "Processing templates [" + file + "]");
+				if (data.getTemplates() != null) {
+					for (ChecklistTemplate definedTemplate : data.getTemplates()) {
+						Log.info(LOGGER, "Template [" + definedTemplate.getName() + "] found");
+						GZSummary.Template t = new GZSummary.Template();
+						t.setName(definedTemplate.getName());
+						t.setChecklist(ChecklistItem.convert(definedTemplate.getItems()));
+						summary.getTemplates().add(t);
+					}
+				}
+				break;
+			default:
+				// Recorded as ignored
+				break;
+			}
+			if (catalog != null) {
+				catalog.put(catalogKey, file, summary);
+			}
+			return summary;
+		} catch (Exception ex) {
+			Log.error(LOGGER, "Error processing " + file + ", file ignored", ex);
+		}
+		return null;
+	}
+	
+	/**
+	 * Summarize GZ files of a context, in the order provided.
+	 * This is executed by worker threads in parallel mode, so it must not touch shared state.
+	 */
+	public static List<GZSummary> summarizeGZContext(
+			ObjectReader reader, List<Path> files, Path extractDir, Config conf, GZCatalog catalog) {
+		List<GZSummary> result = new ArrayList<>();
+		for (Path file : files) {
+			result.add(summarizeGZ(reader, file, extractDir, conf, catalog));
+		}
+		return result;
+	}
+	
+	/**
+	 * Record templates and usages of a context.
+	 * Always executed by one thread in field/context order, 
+	 * so the output and truncated template names are the same regardless of thread count.
+	 */
+	public static void recordGZContext(
+			CSVPrinter template, 
+			CSVPrinter usage, 
+			Map<String, CustomField> fieldMap,
+			Set<String> projectList,
+			Set<String> templateNameList,
+			String customFieldId,
+			String customFieldName,
+			List<GZSummary> summaries) {
+		// Handle manifest and template types
+		String contextName = "";
+		for (GZSummary summary : summaries) {
+			if (summary == null) {
+				// Error already logged
+				continue;
+			}
+			try {
+				switch (summary.getType()) {
+				case ChecklistForJiraData.TYPE_MANIFEST:
+					contextName = summary.getContextName();
+					String fullName = getManifestTemplateName(customFieldName, summary.getContextId());
+					String convertedChecklist = summary.getChecklist();
+					// Find accurate mapping from template to projects
+					if (!fieldMap.containsKey(customFieldId)) {
+						// Custom field not found, sound alarm
+						Log.error(LOGGER, 
+								"Checklist field " + customFieldName + " (" + customFieldId + ") not found, manifest ignored");
+						break;
+					}
+					recordTemplateFromGZ(
+							template, 
+							"Manifest", 
+							templateNameList, 
+							customFieldName, 
+							contextName,
+							fullName, 
+							convertedChecklist);
+					Log.info(LOGGER, "Template [" + fullName + "] processed");
+					// Record usage using GZ data
+					StringBuilder issueTypes = new StringBuilder();
+					for (String issueType : summary.getIssueTypes()) {
+						issueTypes.append("\n").append(issueType);
+					}
+					if (issueTypes.length() != 0) {
+						issueTypes.delete(0, 1);
+					} else if (issueTypes.length() == 0) {
+						issueTypes.append(IssueType.ALL_ISSUE_TYPE_NAME);
+					}
+					if (summary.getProjects().size() == 0) {
+						recordTemplateUsage(
+								usage, 
+								"GZip", 
+								"All", 
+								issueTypes.toString(), 
+								customFieldName, 
+								contextName, 
+								fullName, 
+								Boolean.toString(convertedChecklist.length() == 0));
+					} else {
+						for (String projectKey : summary.getProjects()) {
+							projectList.add(projectKey);
+							Log.debug(LOGGER, 
+									"Checklist template [" + fullName + "] " + 
+									"Associated with project [" + projectKey + "] " + 
+									"Issue types [" + issueTypes.toString() + "] " + 
+									"Custom field [" + customFieldName + "] ");
+							recordTemplateUsage(
+									usage, 
+									"GZip", 
+									projectKey, 
+									issueTypes.toString(), 
+									customFieldName, 
+									contextName, 
+									fullName, 
+									Boolean.toString(convertedChecklist.length() == 0));
+						}
+					}
+					Log.info(LOGGER, 
+							"Template [" + fullName + "] is associated via GZ with " + 
+							summary.getProjects().size() + " project(s)");
+					break;
+				case ChecklistForJiraData.TYPE_TEMPLATE: 
+					// Templates as new checklists with no usage
+					for (GZSummary.Template definedTemplate : summary.getTemplates()) {
+						recordTemplateFromGZ(
+								template, 
+								"Templates", 
+								templateNameList, 
+								customFieldName,
+								contextName,
+								definedTemplate.getName(), 
+								definedTemplate.getChecklist());
+					}
+					break;
+				default:
+					Log.warn(LOGGER, "Type: [" + summary.getType() + "] in [" + summary.getFileName() + "] ignored");
+					break;
+				}
+			} catch (Exception ex) {
+				Log.error(LOGGER, "Error processing " + summary.getFileName() + ", file ignored", ex);
+			}
+		}	// For each file
+	}
+	
 	private static void exportUsage(
 			Config conf, 
 			List<CustomField> fieldList, 
 			String wfFile, 
-			String gzFolder) throws Exception {
-		Map<String, CustomField> fieldMap = fieldList.stream().collect(
-				Collectors.toMap(CustomField::getFieldId, item -> item));
-		// Output to CSV
-		Date now = new Date();
+			String gzFolder,
+			String catalogFile) throws Exception {
 		Path gzDir = Paths.get(gzFolder);
-		Path extractDir = Paths.get("GZ." + SDF.format(now));
-		Path csvProject = Paths.get("ChecklistProject." + SDF.format(now) + ".csv"); 
-		Path csvTemplate = Paths.get("ChecklistTemplate." + SDF.format(now) + ".csv"); 
-		Path csvUsage = Paths.get("ChecklistUsage." + SDF.format(now) + ".csv"); 
-		CSVFormat fmtTemplate = CSV.getCSVWriteFormat(Arrays.asList(
-					"Template Source",
-					"Workflow Name",
-					"Transition Name",
-					"Transition ID",
-					"Initial Transition",
-					"Append",
-					"Field Name",
-					"Context Name",
-					"Template Full Name",
-					"Template Truncated Name",
-					"Template Content"
-				));
-		CSVFormat fmtUsage = CSV.getCSVWriteFormat(Arrays.asList(
-					"Source",
-					"Project Key",
-					"Issue Type(s)",
-					"Field Name",
-					"Context Name", 
-					"Template Full Name",
-					"Template Empty"
-				));
-		CSVFormat fmtProject = CSV.getCSVWriteFormat(Arrays.asList(
-					"Project Key"
-				));
-		try {
-			Files.createDirectory(extractDir);
-			try (	FileWriter fwProject = new FileWriter(csvProject.toFile());
-					CSVPrinter project = new CSVPrinter(fwProject, fmtProject);					
-					FileWriter fwTemplate = new FileWriter(csvTemplate.toFile());
-					CSVPrinter template = new CSVPrinter(fwTemplate, fmtTemplate);
-					FileWriter fwUsage = new FileWriter(csvUsage.toFile()); 
-					CSVPrinter usage = new CSVPrinter(fwUsage, fmtUsage)) {
-
-				// Projects that uses Checklist for Jira
-				Set<String> projectList = new HashSet<>();
-				Set<String> templateNameList = new HashSet<>();
-
-				// Read workflows
-				Log.info(LOGGER, "Processing workflows");
-				if (wfFile != null) {
-					// From file
-					Log.info(LOGGER, "Reading workflow from file: " + wfFile);
-					ObjectReader reader = OM.readerFor(new TypeReference<List<Workflow>>() {});
-					List<Workflow> workflows = reader.readValue(Paths.get(wfFile).toFile());
-					for (Workflow workflow : workflows) {
-						try {
-							processWorkflow(workflow, fieldMap, template, usage, projectList, templateNameList);						
-						} catch (Exception ioex) {
-							Log.error(LOGGER, "Error processing " + workflow.getWorkflowName(), ioex);
-						}
-					};
-				} else {
-					// From DB
-					Log.info(LOGGER, "Reading workflow from database");
-					SqlSessionFactory factory = setupMyBatis(conf);
-					try (SqlSession session = factory.openSession()) {
-						// Get filter info from source
-						DataMapper mapper = session.getMapper(DataMapper.class);
-						List<Workflow> workflows = mapper.getWorkflows();
-						for (Workflow workflow : workflows) {
-							try {
-								processWorkflow(workflow, fieldMap, template, usage, projectList, templateNameList);
-							} catch (Exception ioex) {
-								Log.error(LOGGER, "Error processing " + workflow.getWorkflowName(), ioex);
-							}
-						} // For each workflow
-					} // SqlSession resource
-				} // If wfFolder
-				
-				Log.info(LOGGER, "Processing GZ from [" + gzFolder + "]");
-				// Group the files in gzDir by fieldId-context
-				Map<String, Map<String, List<Path>>> map = new HashMap<>();
-				DirectoryStream<Path> gzDirStream = Files.newDirectoryStream(gzDir, "*.gz");
-				Pattern gzPattern = Pattern.compile("customfield_([0-9]+)-([0-9]+)-([0-9]+)\\.gz");
-				gzDirStream.forEach(p -> {
-					Matcher m = gzPattern.matcher(p.getFileName().toString());
-					if (m.matches()) {
-						String fieldId = m.group(1);
-						String contextId = m.group(2);
-						if (!map.containsKey(fieldId)) {
-							map.put(fieldId, new HashMap<>());
-						}
-						Map<String, List<Path>> submap = map.get(fieldId);
-						if (!submap.containsKey(contextId)) {
-							submap.put(contextId, new ArrayList<>());
-						}
-						submap.get(contextId).add(p);
+		try (UsageWriter writer = new UsageWriter(conf, fieldList, catalogFile)) {
+			// Read workflows
+			writer.processWorkflows(wfFile);
+			
+			Log.info(LOGGER, "Processing GZ from [" + gzFolder + "]");
+			// Group the files in gzDir by fieldId-context
+			// Sorted so output does not depend on directory order or thread count
+			Map<String, Map<String, List<Path>>> map = new TreeMap<>();
+			DirectoryStream<Path> gzDirStream = Files.newDirectoryStream(gzDir, "*.gz");
+			gzDirStream.forEach(p -> {
+				Matcher m = GZ_PATTERN.matcher(p.getFileName().toString());
+				if (m.matches()) {
+					String fieldId = m.group(1);
+					String contextId = m.group(2);
+					if (!map.containsKey(fieldId)) {
+						map.put(fieldId, new TreeMap<>());
 					}
-				});
-				
-				ObjectReader reader = OM.readerFor(ChecklistForJiraData.class);
+					Map<String, List<Path>> submap = map.get(fieldId);
+					if (!submap.containsKey(contextId)) {
+						submap.put(contextId, new ArrayList<>());
+					}
+					submap.get(contextId).add(p);
+				}
+			});
+			for (Map<String, List<Path>> submap : map.values()) {
+				for (List<Path> files : submap.values()) {
+					files.sort(Comparator.comparing(ChecklistForJira::getGZChunk));
+				}
+			}
+			
+			// In parallel mode, contexts are summarized by worker threads, 
+			// but still recorded by this thread in map order
+			Map<String, Future<List<GZSummary>>> futureMap = new HashMap<>();
+			ExecutorService service = null;
+			if (conf.getExportUsageThreadCount() > 1) {
+				Log.info(LOGGER, "Processing GZ using " + conf.getExportUsageThreadCount() + " thread(s)");
+				service = Executors.newFixedThreadPool(conf.getExportUsageThreadCount());
+				for (Map.Entry<String, Map<String, List<Path>>> customFieldEntry : map.entrySet()) {
+					for (Map.Entry<String, List<Path>> contextEntry : customFieldEntry.getValue().entrySet()) {
+						final List<Path> files = contextEntry.getValue();
+						futureMap.put(
+								customFieldEntry.getKey() + "-" + contextEntry.getKey(), 
+								service.submit(() -> writer.summarize(files)));
+					}
+				}
+			}
+			try {
 				// For each field
 				for (Map.Entry<String, Map<String, List<Path>>> customFieldEntry : map.entrySet()) {
 					String customFieldId = customFieldEntry.getKey();
-					String customFieldName = fieldMap.get(customFieldId).getFieldName();
 					for (Map.Entry<String, List<Path>> contextEntry : customFieldEntry.getValue().entrySet()) {
-						// Handle manifest and template types
-						String contextId = "";
-						String contextName = "";
-						for (Path file : contextEntry.getValue()) {
-							Log.info(LOGGER, "Processing GZip file [" + file + "]");
-							Path extractedFile = gunzip(extractDir, file);
-							ChecklistForJiraData data = null;
-							try (FileInputStream in = new FileInputStream(extractedFile.toFile())) {
-								Log.info(LOGGER, "Processing extracted file [" + extractedFile + "]");
-								data = reader.readValue(in);
-								switch(data.getType()) {
-								case ChecklistForJiraData.TYPE_MANIFEST:
-									Log.info(LOGGER, "Processing manifest [" + extractedFile + "]");
-									//String customFieldId = String.valueOf(data.getFieldConfig().getCustomFieldId());
-									//String customFieldName = data.getFieldConfig().getCustomFieldName();
-									contextId = String.valueOf(data.getFieldConfig().getId());
-									contextName = data.getFieldConfig().getName();
-									String fullName = getManifestTemplateName(customFieldName, contextId);
-									List<ChecklistItem> checklistItems = new ArrayList<>();
-									// Global items
-									if (data.getGlobalItems() != null) {
-										checklistItems.addAll(data.getGlobalItems());
-									}
-									// Default local items
-									if (data.getDefaultLocalItems() != null) {
-										checklistItems.addAll(data.getDefaultLocalItems());
-									}
-									// Convert checklistItems to new format
-									String convertedChecklist = ChecklistItem.convert(checklistItems);
-									// Find accurate mapping from template to projects
-									if (!fieldMap.containsKey(customFieldId)) {
-										// Custom field not found, sound alarm
-										Log.error(LOGGER, 
-												"Checklist field " + customFieldName + " (" + customFieldId + ") not found, manifest ignored");
-										break;
-									}
-									recordTemplateFromGZ(
-											template, 
-											"Manifest", 
-											templateNameList, 
-											customFieldName, 
-											contextName,
-											fullName, 
-											convertedChecklist);
-									Log.info(LOGGER, "Template [" + fullName + "] processed");
-									// Record usage using GZ data
-									StringBuilder issueTypes = new StringBuilder();
-									for (String issueType : data.getFieldConfig().getIssueTypes().values()) {
-										issueTypes.append("\n").append(issueType);
-									}
-									if (issueTypes.length() != 0) {
-										issueTypes.delete(0, 1);
-									} else if (issueTypes.length() == 0) {
-										issueTypes.append(IssueType.ALL_ISSUE_TYPE_NAME);
-									}
-									if (data.getFieldConfig().getProjects().values().size() == 0) {
-										recordTemplateUsage(
-												usage, 
-												"GZip", 
-												"All", 
-												issueTypes.toString(), 
-												customFieldName, 
-												contextName, 
-												fullName, 
-												Boolean.toString(convertedChecklist.length() == 0));
-									} else {
-										for (String projectKey : data.getFieldConfig().getProjects().values()) {
-											projectList.add(projectKey);
-											Log.debug(LOGGER, 
-													"Checklist template [" + fullName + "] " + 
-													"Associated with project [" + projectKey + "] " + 
-													"Issue types [" + issueTypes.toString() + "] " + 
-													"Custom field [" + customFieldName + "] ");
-											recordTemplateUsage(
-													usage, 
-													"GZip", 
-													projectKey, 
-													issueTypes.toString(), 
-													customFieldName, 
-													contextName, 
-													fullName, 
-													Boolean.toString(convertedChecklist.length() == 0));
-										}
-									}
-									Log.info(LOGGER, 
-											"Template [" + fullName + "] is associated via GZ with " + 
-											data.getFieldConfig().getProjects().values().size() + " project(s)");
-									break;
-								case ChecklistForJiraData.TYPE_TEMPLATE: 
-									Log.info(LOGGER, "Processing templates [" + extractedFile + "]");
-									// Templates as new checklists with no usage
-									if (data.getTemplates() != null) {
-										for (ChecklistTemplate definedTemplate : data.getTemplates()) {
-											String convertedDefinedChecklist = ChecklistItem.convert(definedTemplate.getItems());
-											Log.info(LOGGER, "Template [" + definedTemplate.getName() + "] found");
-											recordTemplateFromGZ(
-													template, 
-													"Templates", 
-													templateNameList, 
-													customFieldName,
-													contextName,
-													definedTemplate.getName(), 
-													convertedDefinedChecklist);
-										}
-									}
-									break;
-								default:
-									Log.warn(LOGGER, "Type: [" + data.getType() + "] in [" + extractedFile + "] ignored");
-									break;
-								}
-							} catch (Exception ex) {
-								Log.error(LOGGER, "Error processing " + extractedFile + ", file ignored", ex);
-							}
-						}	// For each file
+						List<GZSummary> summaries = null;
+						if (service != null) {
+							summaries = futureMap.get(customFieldId + "-" + contextEntry.getKey()).get();
+						} else {
+							summaries = writer.summarize(contextEntry.getValue());
+						}
+						writer.recordContext(customFieldId, summaries);
 					}	// For context
 					// Record usage using field data
-					CustomField cf = fieldMap.get(customFieldId);
-					String fullName = customFieldName;
-					Set<String> projectKeySet = new HashSet<>();
-					for (Source source : cf.getSourceList()) {
-						for (Project p : source.getProjectList()) {
-							projectKeySet.add(p.getProjectKey());
-							projectList.add(p.getProjectKey());
-							recordTemplateUsage(
-									usage, 
-									source.getSource(), 
-									p.getProjectKey(), 
-									p.getIssueTypeString(),
-									cf.getFieldName(), 
-									"N/A", 
-									"N/A", 
-									"N/A");
-							Log.info(LOGGER, 
-									"Template [" + fullName + "] is associated via workflow/screens with " + 
-									p.getProjectKey() + " issue types [" + p.getIssueTypeString() + "]");
-						}
-					}
-					Log.info(LOGGER, 
-							"Template [" + fullName + "] is associated via workflow/screen with " + 
-							projectKeySet.size() + " project(s)");
+					writer.recordField(customFieldId);
 				}	// For each custom field
-				// Write project list
-				for (String pKey : projectList) {
-					project.printRecord(pKey);
-				}				
-			} // Try file outputs
-		} finally {
-			FileUtils.deleteDirectory(extractDir.toFile());
-		}
-		Log.info(LOGGER, "Checklist for Jira templates written to: " + csvTemplate.toString());
-		Log.info(LOGGER, "Template usage written to: " + csvUsage.toString());
+			} finally {
+				if (service != null) {
+					service.shutdownNow();
+				}
+			}
+		} // Try file outputs
 	}
 	
 	private static void exportWorkflows(Config conf) throws Exception {
@@ -692,6 +767,27 @@ public class ChecklistForJira {
 		}
 	}
 	
+	/**
+	 * Export contexts of Checklist for Jira fields in the format of bypass CSV.
+	 */
+	private static void exportContextList(Config conf) {
+		String fileName = "ChecklistContext." + SDF.format(new Date()) + ".csv";
+		CSVFormat format = CSV.getCSVWriteFormat(Arrays.asList("Custom Field ID", "Context ID"));
+		try (	FileWriter fw = CSV.getCSVFileWriter(fileName); 
+				CSVPrinter printer = new CSVPrinter(fw, format)) {
+			int count = 0;
+			for (Map.Entry<String, List<String>> entry : getChecklistContexts(conf).entrySet()) {
+				for (String contextId : entry.getValue()) {
+					printer.printRecord(entry.getKey(), contextId);
+					count++;
+				}
+			}
+			Log.info(LOGGER, count + " Checklist for Jira context(s) exported to: " + fileName);
+		} catch (Exception ex) {
+			Log.error(LOGGER, "Error exporting Checklist for Jira contexts", ex);
+		}
+	}
+	
 	private static List<CustomField> readFieldList(String fileName) {
 		List<CustomField> result = null;
 		try (FileReader fr = new FileReader(fileName)) {
@@ -735,41 +831,105 @@ public class ChecklistForJira {
 		return result;
 	}
 	
-	private static void triggerExport(Config conf, List<CustomField> fieldList, Path bypassFile) {
+	private static void triggerExport(
+			Config conf, List<CustomField> fieldList, Path bypassFile, Path journalFile, boolean dbContexts, 
+			boolean pipeline, String wfFile, String catalogFile) {
 		Instant startTime = Instant.now();
 		ExportResult result = new ExportResult();
 		Map<String, List<String>> bypassMap = null;
 		if (bypassFile != null) {
 			bypassMap = readBypassFile(bypassFile);
 		}
-		ExecutorService service = Executors.newFixedThreadPool(conf.getConcurrentExportCount());
-		List<Future<ExportResult>> futureList = new ArrayList<>();
-		for (CustomField field : fieldList) {
-			futureList.add(service.submit(new ExportThread(
-					conf, Paths.get(conf.getChecklistForJiraExportDir()), field, conf.getExportMaxWaitMS(), bypassMap)));
+		Map<String, List<String>> contextMap = null;
+		if (dbContexts) {
+			try {
+				contextMap = getChecklistContexts(conf);
+				Log.info(LOGGER, "Contexts read from database for " + contextMap.size() + " custom field(s)");
+			} catch (Exception ex) {
+				Log.error(LOGGER, "Unable to read contexts from database", ex);
+				return;
+			}
 		}
-		while (!futureList.isEmpty()) {
+		ExportJournal journal = ExportJournal.disabled();
+		if (journalFile != null) {
 			try {
-				Thread.sleep(1000);
-			} catch (InterruptedException iex) {
-				Log.error(LOGGER, "Sleep interrupted", iex);
+				journal = ExportJournal.open(journalFile);
+			} catch (IOException ioex) {
+				Log.error(LOGGER, "Unable to open export journal", ioex);
+				return;
 			}
-			List<Future<ExportResult>> toRemove = new ArrayList<>();
-			for (Future<ExportResult> future : futureList) {
+		}
+		SourceNodePool nodes = new SourceNodePool(conf, conf.getExportEngine());
+		ExportEngineStats stats = new ExportEngineStats();
+		Log.info(LOGGER, "Export engine: " + nodes.getDiscoveryEngine().getName() + 
+				", source node(s): " + nodes.getNodes().size());
+		ExportHistory history = ExportHistory.create(conf);
+		ExportEstimator estimator = ExportEstimator.create(conf, journal, history);
+		JobCompletionDetector detector = JobCompletionDetector.create(conf);
+		ExportArchiver archiver = ExportArchiver.create(conf);
+		UsagePipeline usagePipeline = null;
+		// Cancelling run scope cancels all fields and contexts
+		ExportScope runScope = ExportScope.root("Export", conf.getExportRunMaxWaitMS());
+		try {
+			if (pipeline) {
 				try {
-					ExportResult er = future.get(1000, TimeUnit.MILLISECONDS);
-					result.addAll(er);
-					toRemove.add(future);
-				} catch (TimeoutException tex) {
-					// Ignore and wait
+					usagePipeline = new UsagePipeline(conf, fieldList, wfFile, catalogFile, nodes);
 				} catch (Exception ex) {
-					Log.error(LOGGER, "Thread execution failed", ex);
-					toRemove.add(future);
+					Log.error(LOGGER, "Unable to start usage pipeline", ex);
+					return;
+				}
+			}
+			try (ExportScheduler scheduler = new ExportScheduler(conf, estimator);
+				ConcurrencyGovernor governor = conf.isAdaptiveConcurrency()? 
+						new ConcurrencyGovernor(conf, scheduler) : null) {
+				if (usagePipeline != null) {
+					scheduler.setListener(usagePipeline::offer);
+				}
+				if (governor != null) {
+					for (SourceNodePool.Node node : nodes.getNodes()) {
+						if (Files.isDirectory(node.getExportDirectory())) {
+							ExportDirectoryWatcher.getInstance(conf, node.getExportDirectory()).addListener(governor::recordChunk);
+						}
+					}
+				}
+				ExportRun run = new ExportRun(nodes, stats, journal, governor, detector, archiver, history);
+				for (CustomField field : fieldList) {
+					scheduler.submit(new ExportThread(
+							conf, run, runScope, field, conf.getExportMaxWaitMS(), bypassMap, contextMap));
+				}
+				result.addAll(scheduler.awaitAll());
+			} catch (InterruptedException iex) {
+				Log.error(LOGGER, "Export interrupted", iex);
+				runScope.cancel("Export interrupted");
+			}
+		} finally {
+			// Also on unchecked exceptions, usage pipeline workers would keep JVM running
+			runScope.close();
+			if (usagePipeline != null) {
+				try {
+					usagePipeline.close();
+				} catch (IOException ioex) {
+					Log.error(LOGGER, "Error closing usage pipeline", ioex);
+				}
+			}
+			nodes.close();
+			if (detector != null) {
+				detector.close();
+			}
+			if (archiver != null) {
+				archiver.close();
+			}
+			journal.close();
+			if (history != null) {
+				try {
+					history.save();
+				} catch (IOException ioex) {
+					Log.error(LOGGER, "Unable to save export history", ioex);
 				}
 			}
-			futureList.removeAll(toRemove);
+			ExportDirectoryWatcher.closeAll();
 		}
-		service.shutdownNow();
+		stats.print();
 		Instant endTime = Instant.now();
 		// Print result
 		// Verified
@@ -831,7 +991,7 @@ public class ChecklistForJira {
 			}
 		}
 		try {
-			ClientPool.setMaxPoolSize(10, 0, 0);
+			RestClient.init(conf);
 			List<com.igsl.rest.Project> projectList = 
 					JiraObject.getObjects(conf, com.igsl.rest.Project.class, true);
 			CSVFormat format = CSVFormat.Builder.create()
@@ -849,7 +1009,10 @@ public class ChecklistForJira {
 			Log.info(LOGGER, "Output file written: " + output);
 		} catch (Exception e) {
 			Log.error(LOGGER, "Error getting project list", e);
+		} finally {
+			RestClient.close();
 		}
+		RateLimiter.logStats();
 	}
 	
 	private static void convertCSV(Config conf, String csvFile) {
@@ -924,6 +1087,9 @@ public class ChecklistForJira {
 					case EXPORT_FIELD: 
 						exportFieldList(conf);
 						break;						
+					case EXPORT_CONTEXT: 
+						exportContextList(conf);
+						break;
 					case TRIGGER_EXPORT: {
 						List<CustomField> fieldList = readFieldList(cmd.getOptionValue(CLI.FIELD_LIST_OPTION));
 						String bypassFile = cmd.getOptionValue(CLI.BYPASS_TRIGGER_OPTION);
@@ -931,14 +1097,42 @@ public class ChecklistForJira {
 						if (bypassFile != null) {
 							bypassPath = Paths.get(bypassFile);
 						}
-						triggerExport(conf, fieldList, bypassPath);
+						String journalFile = cmd.getOptionValue(CLI.JOURNAL_OPTION);
+						Path journalPath = null;
+						if (journalFile != null) {
+							journalPath = Paths.get(journalFile);
+						}
+						triggerExport(conf, fieldList, bypassPath, journalPath, cmd.hasOption(CLI.DB_CONTEXTS_OPTION), 
+								cmd.hasOption(CLI.PIPELINE_OPTION), 
+								cmd.getOptionValue(CLI.WF_FILE_OPTION), 
+								cmd.getOptionValue(CLI.GZ_CATALOG_OPTION));
 						break;
 					}
 					case EXPORT_USAGE: {
 						List<CustomField> fieldList = readFieldList(cmd.getOptionValue(CLI.FIELD_LIST_OPTION));
 						String gzFolder = cmd.getOptionValue(CLI.GZ_DIR_OPTION);
 						String wfFolder = cmd.getOptionValue(CLI.WF_FILE_OPTION);
-						exportUsage(conf, fieldList, wfFolder, gzFolder);
+						String catalogFile = cmd.getOptionValue(CLI.GZ_CATALOG_OPTION);
+						exportUsage(conf, fieldList, wfFolder, gzFolder, catalogFile);
+						break;
+					}
+					case BENCHMARK_ENGINE: {
+						List<CustomField> fieldList = readFieldList(cmd.getOptionValue(CLI.FIELD_LIST_OPTION));
+						ExportEngineBenchmark.run(conf, fieldList);
+						break;
+					}
+					case BENCHMARK_GZ: {
+						String gzFolder = cmd.getOptionValue(CLI.GZ_DIR_OPTION);
+						GZBenchmark.run(conf, gzFolder);
+						break;
+					}
+					case BENCHMARK_PAGING: {
+						PagingBenchmark.run(conf);
+						break;
+					}
+					case SIMULATE_EXPORT: {
+						String journalFile = cmd.getOptionValue(CLI.JOURNAL_OPTION);
+						ExportSimulator.run(conf, (journalFile == null)? null : Paths.get(journalFile));
 						break;
 					}
 					}
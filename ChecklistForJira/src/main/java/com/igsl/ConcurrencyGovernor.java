@@ -0,0 +1,114 @@
+package com.igsl;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Adjusts no. of concurrent context exports to the load of the Jira node (AIMD).
+ *
+ * Every governorIntervalMS, signals collected during the interval are checked:
+ * 	Errors, average progress page latency above governorLatencyMS,
+ * 	or chunk (GZ file) arrival rate falling after the limit was raised, mean Jira is overloaded.
+ * 	The limit is multiplied by governorDecrease.
+ * 	Otherwise, if all slots are in use, the limit is increased by 1.
+ * The limit stays within concurrentContextMin and concurrentContextCount.
+ */
+public class ConcurrencyGovernor implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	// Chunk rate below this fraction of previous interval counts as a drop
+	private static final double CHUNK_RATE_DROP = 0.5;
+
+	private ExportScheduler scheduler;
+	private int min;
+	private int max;
+	private long latencyTargetMS;
+	private double decrease;
+	private long intervalMS;
+	private ScheduledExecutorService timer;
+
+	// Signals of current interval
+	private long latencyTotalMS = 0;
+	private int latencyCount = 0;
+	private int errorCount = 0;
+	private int chunkCount = 0;
+	// Previous interval
+	private int previousChunkCount = -1;
+	private boolean raised = false;
+
+	public ConcurrencyGovernor(Config conf, ExportScheduler scheduler) {
+		this.scheduler = scheduler;
+		this.max = Math.max(1, conf.getConcurrentContextCount());
+		this.min = Math.min(this.max, Math.max(1, conf.getConcurrentContextMin()));
+		this.latencyTargetMS = conf.getGovernorLatencyMS();
+		this.decrease = Math.min(1, Math.max(0, conf.getGovernorDecrease()));
+		this.intervalMS = Math.max(1, conf.getGovernorIntervalMS());
+		// Slow start
+		scheduler.setContextLimit(min);
+		Log.info(LOGGER, "Concurrency limit: " + min + " (range " + min + "-" + max + ")");
+		timer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "ConcurrencyGovernor");
+			t.setDaemon(true);
+			return t;
+		});
+		timer.scheduleAtFixedRate(this::adjust, intervalMS, intervalMS, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void recordLatency(long ms) {
+		latencyTotalMS += ms;
+		latencyCount++;
+	}
+
+	public synchronized void recordError() {
+		errorCount++;
+	}
+
+	public synchronized void recordChunk(Path file) {
+		chunkCount++;
+	}
+
+	private synchronized void adjust() {
+		int limit = scheduler.getContextLimit();
+		long averageLatency = (latencyCount == 0)? 0 : latencyTotalMS / latencyCount;
+		boolean chunkRateDropped = raised && previousChunkCount > 0 &&
+				chunkCount < previousChunkCount * CHUNK_RATE_DROP;
+		String reason;
+		int newLimit = limit;
+		if (errorCount > 0 || averageLatency > latencyTargetMS || chunkRateDropped) {
+			newLimit = Math.max(min, (int) (limit * decrease));
+			reason = "overloaded";
+		} else if (scheduler.getRunningContexts() >= limit) {
+			newLimit = Math.min(max, limit + 1);
+			reason = "healthy";
+		} else {
+			reason = "not saturated";
+		}
+		raised = (newLimit > limit);
+		String message = "Concurrency limit: " + newLimit + " (" + reason + ", " +
+				"average latency: " + averageLatency + " ms, " +
+				"errors: " + errorCount + ", " +
+				"chunks: " + chunkCount + " in " + intervalMS + " ms)";
+		if (newLimit != limit) {
+			scheduler.setContextLimit(newLimit);
+			Log.info(LOGGER, message);
+		} else {
+			Log.debug(LOGGER, message);
+		}
+		previousChunkCount = chunkCount;
+		latencyTotalMS = 0;
+		latencyCount = 0;
+		errorCount = 0;
+		chunkCount = 0;
+	}
+
+	@Override
+	public void close() {
+		timer.shutdownNow();
+		Log.info(LOGGER, "Final concurrency limit: " + scheduler.getContextLimit());
+	}
+}
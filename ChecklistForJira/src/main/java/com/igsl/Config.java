@@ -1,10 +1,58 @@
 package com.igsl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class Config {
 	public static final String DEFAULT_SCHEME = "https";
 	public static final int DEFAULT_CONCURRENT_EXPORT_COUNT = 20;
+	public static final int DEFAULT_CONCURRENT_CONTEXT_COUNT = 20;
+	public static final String DEFAULT_EXPORT_ORDER = "longest";
+	public static final double DEFAULT_EXPORT_MS_PER_ISSUE = 10;
 	public static final long DEFAULT_EXPORT_MAX_WAIT_MS = 3600000;
+	public static final boolean DEFAULT_GZ_STREAMING = true;
+	public static final int DEFAULT_GZ_BUFFER_SIZE = 65536;
+	public static final int DEFAULT_EXPORT_USAGE_THREAD_COUNT = 1;
+	public static final String DEFAULT_EXPORT_DIR_WATCH_MODE = "auto";
+	public static final int DEFAULT_SESSION_POOL_SIZE = 4;
+	public static final String DEFAULT_EXPORT_ENGINE = "htmlunit";
+	public static final long DEFAULT_POLL_MIN_MS = 1000;
+	public static final long DEFAULT_POLL_MAX_MS = 30000;
+	public static final double DEFAULT_POLL_MULTIPLIER = 2;
+	public static final double DEFAULT_POLL_JITTER = 0.2;
+	public static final long DEFAULT_EXPORT_DIR_SCAN_MIN_MS = 1000;
+	public static final long DEFAULT_EXPORT_DIR_SCAN_MAX_MS = 10000;
+	public static final boolean DEFAULT_ADAPTIVE_CONCURRENCY = false;
+	public static final int DEFAULT_CONCURRENT_CONTEXT_MIN = 2;
+	public static final long DEFAULT_GOVERNOR_INTERVAL_MS = 30000;
+	public static final long DEFAULT_GOVERNOR_LATENCY_MS = 5000;
+	public static final double DEFAULT_GOVERNOR_DECREASE = 0.5;
+	public static final boolean DEFAULT_JOB_DETECTION = false;
+	public static final long DEFAULT_JOB_POLL_MS = 5000;
+	public static final boolean DEFAULT_ARCHIVE_EXISTING = false;
+	public static final int DEFAULT_ARCHIVE_THREAD_COUNT = 4;
+	public static final int DEFAULT_PIPELINE_QUEUE_SIZE = 100;
+	public static final long DEFAULT_EXPORT_RUN_MAX_WAIT_MS = 0;
+	public static final String DEFAULT_EXPORT_HISTORY_FILE = "ExportHistory.json";
+	public static final int DEFAULT_EXPORT_HISTORY_SIZE = 20;
+	public static final boolean DEFAULT_ADAPTIVE_TIMEOUT = false;
+	public static final double DEFAULT_ADAPTIVE_TIMEOUT_MULTIPLIER = 3;
+	public static final long DEFAULT_ADAPTIVE_TIMEOUT_MIN_MS = 300000;
+	public static final long DEFAULT_ETA_INTERVAL_MS = 60000;
+	public static final List<Integer> DEFAULT_SIMULATION_CAPS = Arrays.asList(1, 2, 4, 8, 12, 16, 20, 30, 40);
+	public static final List<Integer> DEFAULT_SIMULATION_NODES = Arrays.asList(1, 2, 3, 4);
+	public static final double DEFAULT_SIMULATION_TOLERANCE = 0.05;
+	public static final double DEFAULT_SIMULATION_CONTENTION = -1;
+	public static final long DEFAULT_RATE_LIMIT = 100;
+	public static final long DEFAULT_RATE_LIMIT_PERIOD_MS = 1000;
+	public static final int DEFAULT_RETRY_MAX_COUNT = 5;
+	public static final long DEFAULT_RETRY_MIN_MS = 1000;
+	public static final long DEFAULT_RETRY_MAX_MS = 60000;
+	public static final double DEFAULT_RETRY_JITTER = 0.5;
+	public static final long DEFAULT_REST_CONNECT_TIMEOUT_MS = 30000;
+	public static final long DEFAULT_REST_TIMEOUT_MS = 300000;
+	public static final int DEFAULT_REST_PAGE_THREAD_COUNT = 4;
 	
 	private String sourceDatabaseURL;
 	private String sourceDatabaseUser;
@@ -14,10 +62,97 @@ public class Config {
 	private String sourceHost;
 	private String sourceUser;
 	private String sourcePassword;
+	// Nodes of Jira Data Center cluster to spread exports across, sourceHost is used if empty
+	private List<SourceNode> sourceNodes = new ArrayList<>();
 	
 	private String checklistForJiraExportDir;
 	private int concurrentExportCount = DEFAULT_CONCURRENT_EXPORT_COUNT;
+	// Max. no. of contexts exporting at the same time, across all custom fields
+	private int concurrentContextCount = DEFAULT_CONCURRENT_CONTEXT_COUNT;
+	// Order contexts are exported: longest (largest estimate first) or fifo (order found)
+	private String exportOrder = DEFAULT_EXPORT_ORDER;
+	// Export time per issue used for estimates until measured
+	private double exportMSPerIssue = DEFAULT_EXPORT_MS_PER_ISSUE;
+	// Adjust no. of contexts exporting at the same time between concurrentContextMin and concurrentContextCount
+	private boolean adaptiveConcurrency = DEFAULT_ADAPTIVE_CONCURRENCY;
+	private int concurrentContextMin = DEFAULT_CONCURRENT_CONTEXT_MIN;
+	// How often the limit is adjusted
+	private long governorIntervalMS = DEFAULT_GOVERNOR_INTERVAL_MS;
+	// Average progress page response time above which Jira is considered overloaded
+	private long governorLatencyMS = DEFAULT_GOVERNOR_LATENCY_MS;
+	// Limit is multiplied by this when Jira is overloaded
+	private double governorDecrease = DEFAULT_GOVERNOR_DECREASE;
+	// Detect end of export jobs from Jira's scheduler tables in the database
+	private boolean jobDetection = DEFAULT_JOB_DETECTION;
+	// Interval of the query checking all running export jobs
+	private long jobPollMS = DEFAULT_JOB_POLL_MS;
+	// Move existing GZ files of a context to archive folder before triggering its export
+	private boolean archiveExisting = DEFAULT_ARCHIVE_EXISTING;
+	// No. of threads moving files
+	private int archiveThreadCount = DEFAULT_ARCHIVE_THREAD_COUNT;
 	private long exportMaxWaitMS = DEFAULT_EXPORT_MAX_WAIT_MS;
+	// Deadline of whole triggerExport run, contexts still running are cancelled. 0 for no limit.
+	private long exportRunMaxWaitMS = DEFAULT_EXPORT_RUN_MAX_WAIT_MS;
+	// Duration, chunk count and issue count of past exports of each context. Empty to disable.
+	private String exportHistoryFile = DEFAULT_EXPORT_HISTORY_FILE;
+	// No. of past exports kept per context
+	private int exportHistorySize = DEFAULT_EXPORT_HISTORY_SIZE;
+	// Derive max. wait of each context from its history instead of exportMaxWaitMS
+	private boolean adaptiveTimeout = DEFAULT_ADAPTIVE_TIMEOUT;
+	// Max. wait is this multiple of p95 of past durations
+	private double adaptiveTimeoutMultiplier = DEFAULT_ADAPTIVE_TIMEOUT_MULTIPLIER;
+	// Lower bound of adaptive max. wait. Upper bound is exportMaxWaitMS.
+	private long adaptiveTimeoutMinMS = DEFAULT_ADAPTIVE_TIMEOUT_MIN_MS;
+	// Interval to log progress and ETA of triggerExport. 0 to disable.
+	private long etaIntervalMS = DEFAULT_ETA_INTERVAL_MS;
+	// Values of concurrentContextCount to simulate
+	private List<Integer> simulationCaps = new ArrayList<>(DEFAULT_SIMULATION_CAPS);
+	// No. of source nodes to simulate
+	private List<Integer> simulationNodes = new ArrayList<>(DEFAULT_SIMULATION_NODES);
+	// Recommend the smallest settings within this fraction of the fastest simulated run time
+	private double simulationTolerance = DEFAULT_SIMULATION_TOLERANCE;
+	// Slowdown per extra context running on the same node. Negative to measure from export history.
+	private double simulationContention = DEFAULT_SIMULATION_CONTENTION;
+	
+	// Parse GZ files directly from GZIPInputStream instead of extracting them to disk first
+	private boolean gzStreaming = DEFAULT_GZ_STREAMING;
+	// Inflater buffer size in bytes
+	private int gzBufferSize = DEFAULT_GZ_BUFFER_SIZE;
+	// No. of threads processing GZ files in exportUsage, 1 to process on main thread
+	private int exportUsageThreadCount = DEFAULT_EXPORT_USAGE_THREAD_COUNT;
+	// Max. no. of verified contexts waiting for exportUsage when triggerExport runs it as a pipeline
+	private int pipelineQueueSize = DEFAULT_PIPELINE_QUEUE_SIZE;
+	// How export directory is monitored: auto, watch (WatchService) or scan (directory listing)
+	private String exportDirWatchMode = DEFAULT_EXPORT_DIR_WATCH_MODE;
+	// Scan interval bounds, interval doubles while no new file appears
+	private long exportDirScanMinMS = DEFAULT_EXPORT_DIR_SCAN_MIN_MS;
+	private long exportDirScanMaxMS = DEFAULT_EXPORT_DIR_SCAN_MAX_MS;
+	// Max. no. of WebClients sharing the Jira login session
+	private int sessionPoolSize = DEFAULT_SESSION_POOL_SIZE;
+	// Engine used to trigger export: htmlunit (browser emulation) or http (form posts)
+	private String exportEngine = DEFAULT_EXPORT_ENGINE;
+	// Delay between polls of export progress and export directory, multiplied while nothing changes
+	private long pollMinMS = DEFAULT_POLL_MIN_MS;
+	private long pollMaxMS = DEFAULT_POLL_MAX_MS;
+	private double pollMultiplier = DEFAULT_POLL_MULTIPLIER;
+	// Fraction of delay randomly removed, 0 to disable
+	private double pollJitter = DEFAULT_POLL_JITTER;
+	// Max. REST API calls per rateLimitPeriodMS to each source and target host, 0 for no limit
+	private long sourceRateLimit = DEFAULT_RATE_LIMIT;
+	private long targetRateLimit = DEFAULT_RATE_LIMIT;
+	private long rateLimitPeriodMS = DEFAULT_RATE_LIMIT_PERIOD_MS;
+	// Retries of REST API calls on HTTP 429 and network errors, 0 to disable, -1 for no limit
+	private int retryMaxCount = DEFAULT_RETRY_MAX_COUNT;
+	// Delay before retry if not given by server, doubled after each retry
+	private long retryMinMS = DEFAULT_RETRY_MIN_MS;
+	private long retryMaxMS = DEFAULT_RETRY_MAX_MS;
+	// Fraction of retry delay randomly removed, 0 to disable
+	private double retryJitter = DEFAULT_RETRY_JITTER;
+	// Timeouts of REST API calls, 0 for none
+	private long restConnectTimeoutMS = DEFAULT_REST_CONNECT_TIMEOUT_MS;
+	private long restTimeoutMS = DEFAULT_REST_TIMEOUT_MS;
+	// No. of pages of a REST API requested at the same time once total is known, 1 to request one by one
+	private int restPageThreadCount = DEFAULT_REST_PAGE_THREAD_COUNT;
 	
 	private String targetScheme = DEFAULT_SCHEME;
 	private String targetHost;
@@ -105,6 +240,382 @@ public class Config {
 		this.concurrentExportCount = concurrentExportCount;
 	}
 
+	public boolean isGzStreaming() {
+		return gzStreaming;
+	}
+
+	public void setGzStreaming(boolean gzStreaming) {
+		this.gzStreaming = gzStreaming;
+	}
+
+	public int getGzBufferSize() {
+		return gzBufferSize;
+	}
+
+	public void setGzBufferSize(int gzBufferSize) {
+		this.gzBufferSize = gzBufferSize;
+	}
+
+	public int getExportUsageThreadCount() {
+		return exportUsageThreadCount;
+	}
+
+	public void setExportUsageThreadCount(int exportUsageThreadCount) {
+		this.exportUsageThreadCount = exportUsageThreadCount;
+	}
+
+	public String getExportDirWatchMode() {
+		return exportDirWatchMode;
+	}
+
+	public void setExportDirWatchMode(String exportDirWatchMode) {
+		this.exportDirWatchMode = exportDirWatchMode;
+	}
+
+	public long getExportDirScanMinMS() {
+		return exportDirScanMinMS;
+	}
+
+	public void setExportDirScanMinMS(long exportDirScanMinMS) {
+		this.exportDirScanMinMS = exportDirScanMinMS;
+	}
+
+	public long getExportDirScanMaxMS() {
+		return exportDirScanMaxMS;
+	}
+
+	public void setExportDirScanMaxMS(long exportDirScanMaxMS) {
+		this.exportDirScanMaxMS = exportDirScanMaxMS;
+	}
+
+	public int getSessionPoolSize() {
+		return sessionPoolSize;
+	}
+
+	public void setSessionPoolSize(int sessionPoolSize) {
+		this.sessionPoolSize = sessionPoolSize;
+	}
+
+	public String getExportEngine() {
+		return exportEngine;
+	}
+
+	public void setExportEngine(String exportEngine) {
+		this.exportEngine = exportEngine;
+	}
+
+	public long getPollMinMS() {
+		return pollMinMS;
+	}
+
+	public void setPollMinMS(long pollMinMS) {
+		this.pollMinMS = pollMinMS;
+	}
+
+	public long getPollMaxMS() {
+		return pollMaxMS;
+	}
+
+	public void setPollMaxMS(long pollMaxMS) {
+		this.pollMaxMS = pollMaxMS;
+	}
+
+	public double getPollMultiplier() {
+		return pollMultiplier;
+	}
+
+	public void setPollMultiplier(double pollMultiplier) {
+		this.pollMultiplier = pollMultiplier;
+	}
+
+	public double getPollJitter() {
+		return pollJitter;
+	}
+
+	public void setPollJitter(double pollJitter) {
+		this.pollJitter = pollJitter;
+	}
+
+	public int getConcurrentContextCount() {
+		return concurrentContextCount;
+	}
+
+	public void setConcurrentContextCount(int concurrentContextCount) {
+		this.concurrentContextCount = concurrentContextCount;
+	}
+
+	public String getExportOrder() {
+		return exportOrder;
+	}
+
+	public void setExportOrder(String exportOrder) {
+		this.exportOrder = exportOrder;
+	}
+
+	public double getExportMSPerIssue() {
+		return exportMSPerIssue;
+	}
+
+	public void setExportMSPerIssue(double exportMSPerIssue) {
+		this.exportMSPerIssue = exportMSPerIssue;
+	}
+
+	public boolean isAdaptiveConcurrency() {
+		return adaptiveConcurrency;
+	}
+
+	public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+		this.adaptiveConcurrency = adaptiveConcurrency;
+	}
+
+	public int getConcurrentContextMin() {
+		return concurrentContextMin;
+	}
+
+	public void setConcurrentContextMin(int concurrentContextMin) {
+		this.concurrentContextMin = concurrentContextMin;
+	}
+
+	public long getGovernorIntervalMS() {
+		return governorIntervalMS;
+	}
+
+	public void setGovernorIntervalMS(long governorIntervalMS) {
+		this.governorIntervalMS = governorIntervalMS;
+	}
+
+	public long getGovernorLatencyMS() {
+		return governorLatencyMS;
+	}
+
+	public void setGovernorLatencyMS(long governorLatencyMS) {
+		this.governorLatencyMS = governorLatencyMS;
+	}
+
+	public double getGovernorDecrease() {
+		return governorDecrease;
+	}
+
+	public void setGovernorDecrease(double governorDecrease) {
+		this.governorDecrease = governorDecrease;
+	}
+
+	public List<SourceNode> getSourceNodes() {
+		return sourceNodes;
+	}
+
+	public void setSourceNodes(List<SourceNode> sourceNodes) {
+		this.sourceNodes = sourceNodes;
+	}
+
+	public boolean isJobDetection() {
+		return jobDetection;
+	}
+
+	public void setJobDetection(boolean jobDetection) {
+		this.jobDetection = jobDetection;
+	}
+
+	public long getJobPollMS() {
+		return jobPollMS;
+	}
+
+	public void setJobPollMS(long jobPollMS) {
+		this.jobPollMS = jobPollMS;
+	}
+
+	public boolean isArchiveExisting() {
+		return archiveExisting;
+	}
+
+	public void setArchiveExisting(boolean archiveExisting) {
+		this.archiveExisting = archiveExisting;
+	}
+
+	public int getArchiveThreadCount() {
+		return archiveThreadCount;
+	}
+
+	public void setArchiveThreadCount(int archiveThreadCount) {
+		this.archiveThreadCount = archiveThreadCount;
+	}
+
+	public int getPipelineQueueSize() {
+		return pipelineQueueSize;
+	}
+
+	public void setPipelineQueueSize(int pipelineQueueSize) {
+		this.pipelineQueueSize = pipelineQueueSize;
+	}
+
+	public long getExportRunMaxWaitMS() {
+		return exportRunMaxWaitMS;
+	}
+
+	public void setExportRunMaxWaitMS(long exportRunMaxWaitMS) {
+		this.exportRunMaxWaitMS = exportRunMaxWaitMS;
+	}
+
+	public String getExportHistoryFile() {
+		return exportHistoryFile;
+	}
+
+	public void setExportHistoryFile(String exportHistoryFile) {
+		this.exportHistoryFile = exportHistoryFile;
+	}
+
+	public int getExportHistorySize() {
+		return exportHistorySize;
+	}
+
+	public void setExportHistorySize(int exportHistorySize) {
+		this.exportHistorySize = exportHistorySize;
+	}
+
+	public boolean isAdaptiveTimeout() {
+		return adaptiveTimeout;
+	}
+
+	public void setAdaptiveTimeout(boolean adaptiveTimeout) {
+		this.adaptiveTimeout = adaptiveTimeout;
+	}
+
+	public double getAdaptiveTimeoutMultiplier() {
+		return adaptiveTimeoutMultiplier;
+	}
+
+	public void setAdaptiveTimeoutMultiplier(double adaptiveTimeoutMultiplier) {
+		this.adaptiveTimeoutMultiplier = adaptiveTimeoutMultiplier;
+	}
+
+	public long getAdaptiveTimeoutMinMS() {
+		return adaptiveTimeoutMinMS;
+	}
+
+	public void setAdaptiveTimeoutMinMS(long adaptiveTimeoutMinMS) {
+		this.adaptiveTimeoutMinMS = adaptiveTimeoutMinMS;
+	}
+
+	public long getEtaIntervalMS() {
+		return etaIntervalMS;
+	}
+
+	public void setEtaIntervalMS(long etaIntervalMS) {
+		this.etaIntervalMS = etaIntervalMS;
+	}
+
+	public List<Integer> getSimulationCaps() {
+		return simulationCaps;
+	}
+
+	public void setSimulationCaps(List<Integer> simulationCaps) {
+		this.simulationCaps = simulationCaps;
+	}
+
+	public List<Integer> getSimulationNodes() {
+		return simulationNodes;
+	}
+
+	public void setSimulationNodes(List<Integer> simulationNodes) {
+		this.simulationNodes = simulationNodes;
+	}
+
+	public double getSimulationTolerance() {
+		return simulationTolerance;
+	}
+
+	public void setSimulationTolerance(double simulationTolerance) {
+		this.simulationTolerance = simulationTolerance;
+	}
+
+	public double getSimulationContention() {
+		return simulationContention;
+	}
+
+	public void setSimulationContention(double simulationContention) {
+		this.simulationContention = simulationContention;
+	}
+
+	public long getSourceRateLimit() {
+		return sourceRateLimit;
+	}
+
+	public void setSourceRateLimit(long sourceRateLimit) {
+		this.sourceRateLimit = sourceRateLimit;
+	}
+
+	public long getTargetRateLimit() {
+		return targetRateLimit;
+	}
+
+	public void setTargetRateLimit(long targetRateLimit) {
+		this.targetRateLimit = targetRateLimit;
+	}
+
+	public long getRateLimitPeriodMS() {
+		return rateLimitPeriodMS;
+	}
+
+	public void setRateLimitPeriodMS(long rateLimitPeriodMS) {
+		this.rateLimitPeriodMS = rateLimitPeriodMS;
+	}
+
+	public int getRetryMaxCount() {
+		return retryMaxCount;
+	}
+
+	public void setRetryMaxCount(int retryMaxCount) {
+		this.retryMaxCount = retryMaxCount;
+	}
+
+	public long getRetryMinMS() {
+		return retryMinMS;
+	}
+
+	public void setRetryMinMS(long retryMinMS) {
+		this.retryMinMS = retryMinMS;
+	}
+
+	public long getRetryMaxMS() {
+		return retryMaxMS;
+	}
+
+	public void setRetryMaxMS(long retryMaxMS) {
+		this.retryMaxMS = retryMaxMS;
+	}
+
+	public double getRetryJitter() {
+		return retryJitter;
+	}
+
+	public void setRetryJitter(double retryJitter) {
+		this.retryJitter = retryJitter;
+	}
+
+	public long getRestConnectTimeoutMS() {
+		return restConnectTimeoutMS;
+	}
+
+	public void setRestConnectTimeoutMS(long restConnectTimeoutMS) {
+		this.restConnectTimeoutMS = restConnectTimeoutMS;
+	}
+
+	public long getRestTimeoutMS() {
+		return restTimeoutMS;
+	}
+
+	public void setRestTimeoutMS(long restTimeoutMS) {
+		this.restTimeoutMS = restTimeoutMS;
+	}
+
+	public int getRestPageThreadCount() {
+		return restPageThreadCount;
+	}
+
+	public void setRestPageThreadCount(int restPageThreadCount) {
+		this.restPageThreadCount = restPageThreadCount;
+	}
+
 	public String getTargetScheme() {
 		return targetScheme;
 	}
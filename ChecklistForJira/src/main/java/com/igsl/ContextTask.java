@@ -0,0 +1,13 @@
+package com.igsl;
+
+import java.util.concurrent.Callable;
+
+import com.igsl.mybatis.CustomField;
+
+/**
+ * Task exporting or verifying a single context of a custom field.
+ */
+public interface ContextTask extends Callable<ExportResult> {
+	public CustomField getCustomField();
+	public String getContextId();
+}
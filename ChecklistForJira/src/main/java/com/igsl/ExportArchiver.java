@@ -0,0 +1,125 @@
+package com.igsl;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Moves GZ files of a context out of the export directory before export is triggered,
+ * so the Export button is enabled again.
+ *
+ * Files are moved to [Export directory]/archive/[Timestamp], one timestamp per run.
+ * Moves run on a fixed number of threads shared by all contexts.
+ * Atomic rename is used, with copy and delete as fallback where the file system does not support it.
+ */
+public class ExportArchiver implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final SimpleDateFormat SDF = new SimpleDateFormat("yyyyMMdd-HHmmss");
+	private static final String ARCHIVE_DIR = "archive";
+
+	private ExecutorService executor;
+	private String timestamp;
+	private AtomicInteger fileCount = new AtomicInteger();
+	private AtomicInteger copyCount = new AtomicInteger();
+
+	private ExportArchiver(Config conf) {
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(Math.max(1, conf.getArchiveThreadCount()), r -> {
+			Thread t = new Thread(r, "ExportArchiver-" + threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		synchronized (SDF) {
+			this.timestamp = SDF.format(new Date());
+		}
+	}
+
+	/**
+	 * Create archiver if enabled in config.
+	 * @return Archiver, or null if disabled.
+	 */
+	public static ExportArchiver create(Config conf) {
+		if (!conf.isArchiveExisting()) {
+			return null;
+		}
+		return new ExportArchiver(conf);
+	}
+
+	/**
+	 * Move existing GZ files of a context to archive folder.
+	 * @return No. of files moved.
+	 * @throws IOException If any file cannot be moved.
+	 */
+	public int archive(Path exportDirectory, String fieldId, String contextId) throws IOException, InterruptedException {
+		if (!Files.isDirectory(exportDirectory)) {
+			Log.warn(LOGGER, "Export directory [" + exportDirectory + "] not accessible, existing files not archived");
+			return 0;
+		}
+		Path archiveDirectory = exportDirectory.resolve(ARCHIVE_DIR).resolve(timestamp);
+		List<Future<Void>> moves = new ArrayList<>();
+		try (DirectoryStream<Path> stream =
+				Files.newDirectoryStream(exportDirectory, "customfield_" + fieldId + "-" + contextId + "-*.gz")) {
+			for (Path file : stream) {
+				if (moves.size() == 0) {
+					Files.createDirectories(archiveDirectory);
+				}
+				moves.add(executor.submit(() -> {
+					move(file, archiveDirectory.resolve(file.getFileName()));
+					return null;
+				}));
+			}
+		}
+		IOException error = null;
+		for (Future<Void> move : moves) {
+			try {
+				move.get();
+			} catch (ExecutionException eex) {
+				error = new IOException("Unable to archive file: " + eex.getCause().getMessage(), eex.getCause());
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+		if (moves.size() != 0) {
+			ExportDirectoryWatcher.forget(exportDirectory, fieldId, contextId);
+			Log.info(LOGGER, "Archived " + moves.size() + " file(s) of customfield_" + fieldId + "-" + contextId +
+					" to [" + archiveDirectory + "]");
+		}
+		return moves.size();
+	}
+
+	private void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException amnsex) {
+			// Different file store, copy and delete
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+			copyCount.incrementAndGet();
+		}
+		fileCount.incrementAndGet();
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		if (fileCount.get() != 0) {
+			Log.info(LOGGER, "Archived " + fileCount.get() + " file(s), " + copyCount.get() + " copied instead of renamed");
+		}
+	}
+}
@@ -1,125 +1,268 @@
 package com.igsl;
 
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalTime;
 import java.time.ZoneId;
-import java.util.Date;
-import java.util.List;
-import java.util.concurrent.Callable;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.htmlunit.WebClient;
-import org.htmlunit.html.DomElement;
-import org.htmlunit.html.DomText;
-import org.htmlunit.html.HtmlElement;
-import org.htmlunit.html.HtmlPage;
 
 import com.igsl.mybatis.CustomField;
 
-public class ExportContextThread implements Callable<ExportResult> {
+public class ExportContextThread implements ContextTask {
 	
 	private static final Logger LOGGER = LogManager.getLogger();
-	private static final long WAIT = 1000;
 	
 	private static final String COMPLETED_MESSAGE = "Export Finished";
 	
 	private Config conf;
+	private SourceNodePool nodes;
+	private ExportEngineStats stats;
+	private ExportJournal journal;
+	private ConcurrencyGovernor governor;	// Null if concurrency is fixed
+	private JobCompletionDetector detector;	// Null to read progress page
+	private ExportArchiver archiver;	// Null to leave existing GZ files
+	private ExportHistory history;	// Null if disabled
+	private ExportScope fieldScope;
 	private CustomField customField;
 	private String contextId;
-	private URL url;	// The status tracking page after clicking Export, /secure/admin/admin/ExportChecklist!Progress.jspa?fieldConfigId=?&expectingResult=true
+	private URL url;	// The export page containing Export button, /secure/admin/ExportChecklist!default.jspa?fieldConfigId=?
 	private long maxWait;
 	
-	public ExportContextThread(Config conf, CustomField customField, String contextId, URL url, long maxWait) {
+	public ExportContextThread(Config conf, ExportRun run, ExportScope fieldScope, CustomField customField, String contextId, URL url, long maxWait) {
 		this.conf = conf;
+		this.nodes = run.getNodes();
+		this.stats = run.getStats();
+		this.journal = run.getJournal();
+		this.governor = run.getGovernor();
+		this.detector = run.getDetector();
+		this.archiver = run.getArchiver();
+		this.history = run.getHistory();
+		this.fieldScope = fieldScope;
 		this.customField = customField;
 		this.contextId = contextId;
 		this.url = url;
 		this.maxWait = maxWait;
 	}
 	
+	@Override
+	public CustomField getCustomField() {
+		return customField;
+	}
+
+	@Override
+	public String getContextId() {
+		return contextId;
+	}
+
 	public String getName() {
 		return "customfield_" + customField.getFieldId() + "-" + contextId;
 	}
 	
+	/**
+	 * No. of GZ files of context in export directory, -1 if directory is not accessible.
+	 */
+	private int countChunks(Path exportDirectory) {
+		if (!Files.isDirectory(exportDirectory)) {
+			return -1;
+		}
+		int count = 0;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+				exportDirectory, "customfield_" + customField.getFieldId() + "-" + contextId + "-*.gz")) {
+			for (@SuppressWarnings("unused") Path p : stream) {
+				count++;
+			}
+		} catch (IOException ioex) {
+			return -1;
+		}
+		return count;
+	}
+
 	@Override
 	public ExportResult call() throws Exception {
 		Instant startTime = Instant.now();
 		Log.info(LOGGER, "Verification started for " + getName() + " URL: " + url);
 		ExportResult result = new ExportResult();
-		try (final WebClient webClient = new WebClient()) {
-			webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
-			webClient.getOptions().setThrowExceptionOnScriptError(false);
-			// Login
-			ExportThread.loginJira(conf, webClient);			
+		ExportEngineStats.Sample sample = ExportEngineStats.start();
+		PollPolicy pollPolicy = PollPolicy.create(conf);
+		// Waiting for a node is cancelled with field or run, but is not limited by maxWait
+		ExportScope queueScope = fieldScope.child(getName() + " (queued)", 0);
+		queueScope.bind();
+		ExportScope scope = queueScope;
+		SourceNodePool.Node node = null;
+		String engineName = conf.getExportEngine();
+		try {
 			boolean completed = false;
-			HtmlPage page = webClient.getPage(url);
-			List<Object> exportButtonList = page.getByXPath("//input[@class='aui-button'][@value='Export']");
-			if (exportButtonList.size() == 1) {
-				HtmlElement button = (HtmlElement) exportButtonList.get(0);
-				if (DomElement.ATTRIBUTE_NOT_DEFINED == button.getAttribute("disabled")) {
-					HtmlPage resultPage = button.click();
-					Log.info(LOGGER, "Export triggered for: " + 
-							"Custom field: [" + customField.getFieldName() + "] (" + customField.getFieldId() + ") " + 
-							"Context: " + contextId + " " + 
-							"Max wait: " + maxWait);
-					long wait = 0;
-					while (true) {
-						if (wait >= maxWait) {
-							Log.error(LOGGER, "Timeout waiting for " + 
-									"Custom field: [" + customField.getFieldName() + "] (" + customField.getFieldId() + ") " + 
-									"Context: " + contextId + " " + 
-									"Max wait: " + maxWait + " " + 
-									"Waited: " + wait);
+			node = nodes.acquire();
+			int parallel = nodes.getRunning(node);
+			ExportEngine engine = node.getEngine();
+			engineName = engine.getName();
+			URL exportPage = node.locate(url);
+			Log.info(LOGGER, "Export of " + getName() + " placed on node: " + node.getName());
+			if (archiver != null) {
+				// Existing GZ files disable Export button
+				archiver.archive(node.getExportDirectory(), customField.getFieldId(), contextId);
+			}
+			// Export duration and deadline of all blocking calls for this context start here
+			Instant exportStartTime = Instant.now();
+			scope = queueScope.child(getName(), maxWait);
+			scope.bind();
+			if (detector != null) {
+				// Before triggering, so a quick job is not missed
+				detector.register(contextId);
+			}
+			// Throws if Export button is not found
+			URL resultUrl = engine.startExport(exportPage, scope);
+			if (resultUrl != null) {
+				journal.record(customField, contextId, ExportJournal.State.TRIGGERED, resultUrl.toString());
+				Log.info(LOGGER, "Export triggered for: " + 
+						"Custom field: [" + customField.getFieldName() + "] (" + customField.getFieldId() + ") " + 
+						"Context: " + contextId + " " + 
+						"Max wait: " + maxWait);
+				long wait = 0;
+				String lastMessage = null;
+				long triggeredTime = System.currentTimeMillis();
+				// Job name may not match context, give up on detector if no job is found in time
+				long jobGraceMS = Math.max(conf.getExportDirScanMaxMS(), 2 * conf.getJobPollMS());
+				boolean jobNotFound = false;
+				while (true) {
+					if (scope.isCancelled()) {
+						Log.error(LOGGER, "Timeout waiting for " + 
+								"Custom field: [" + customField.getFieldName() + "] (" + customField.getFieldId() + ") " + 
+								"Context: " + contextId + " " + 
+								"Max wait: " + maxWait + " " + 
+								"Waited: " + wait + " " + 
+								"Reason: " + scope.getCancelReason());
+						result.addItem(customField, contextId, "Cancelled: " + scope.getCancelReason(), null);
+						break;
+					}
+					String message;
+					JobCompletionDetector.Status jobStatus = null;
+					if (detector != null && detector.isAvailable() && !jobNotFound) {
+						// Job state read by detector for all contexts at once
+						jobStatus = detector.getStatus(contextId);
+						if (jobStatus.getState() == JobCompletionDetector.State.PENDING && 
+								System.currentTimeMillis() - triggeredTime > jobGraceMS) {
+							Log.warn(LOGGER, "No export job found for " + getName() + " after " + jobGraceMS + 
+									" ms, reading progress page instead");
+							jobNotFound = true;
+							jobStatus = null;
+						}
+					}
+					if (jobStatus != null) {
+						if (jobStatus.getState() == JobCompletionDetector.State.FAILED) {
+							Log.error(LOGGER, "Export job failed for " + getName() + ": " + jobStatus.getMessage());
+							if (governor != null) {
+								governor.recordError();
+							}
+							result.addItem(customField, contextId, "Export job failed: " + jobStatus.getMessage(), null);
 							break;
 						}
-						resultPage = (HtmlPage) resultPage.refresh();
-						List<Object> messages = resultPage.getByXPath(""
-								+ "//main[@role='main'][./h2[@class='formtitle'][text()='Checklist Export']]/div[contains(@class,'aui-message')]/p[@class='title']/text()");
-						if (messages.size() == 1) {
-							DomText element = (DomText) messages.get(0);
-							String message = element.getTextContent();
-							Log.debug(LOGGER, "Message: " + message);
-							if (COMPLETED_MESSAGE.equals(message)) {
-								result.addItem(customField, contextId, null,  
-										"customfield_" + customField.getFieldId() + "-" + contextId + "-*.gz");
-								Log.info(LOGGER, "Export completed for " + 
-										"Custom field: [" + customField.getFieldName() + "] (" + customField.getFieldId() + ") " + 
-										"Context: " + contextId);
-								completed = true;
-								break;
+						message = (jobStatus.getState() == JobCompletionDetector.State.SUCCEEDED)? 
+								COMPLETED_MESSAGE : 
+								"Export job " + jobStatus.getState();
+					} else {
+						long pollStart = System.currentTimeMillis();
+						try {
+							message = engine.getProgressMessage(resultUrl, scope);
+						} catch (ExportEngine.ProgressPageException ppex) {
+							// Polled again, but counted against concurrency
+							Log.warn(LOGGER, ppex.getMessage());
+							message = null;
+							if (governor != null) {
+								governor.recordError();
+							}
+						}
+						if (governor != null) {
+							governor.recordLatency(System.currentTimeMillis() - pollStart);
+						}
+					}
+					if (message != null) {
+						Log.debug(LOGGER, "Message: " + message);
+						if (COMPLETED_MESSAGE.equals(message)) {
+							result.addItem(customField, contextId, null,  
+									"customfield_" + customField.getFieldId() + "-" + contextId + "-*.gz");
+							Log.info(LOGGER, "Export completed for " + 
+									"Custom field: [" + customField.getFieldName() + "] (" + customField.getFieldId() + ") " + 
+									"Context: " + contextId);
+							completed = true;
+							if (history != null) {
+								history.record(customField.getFieldId(), contextId, 
+										Duration.between(exportStartTime, Instant.now()).toMillis(), 
+										countChunks(node.getExportDirectory()), -1, parallel);
 							}
+							break;
+						}
+					} else {
+						Log.error(LOGGER, "Message cannot be found");
+					}
+					if (message != null && !message.equals(lastMessage)) {
+						// Status changed, check again soon
+						pollPolicy.progress();
+						if (lastMessage == null) {
+							// Progress page identifies the node if monitoring has to resume
+							journal.record(customField, contextId, ExportJournal.State.IN_PROGRESS, resultUrl.toString());
+						}
+						lastMessage = message;
+					}
+					try {
+						if (jobStatus != null) {
+							// Wake up as soon as job state changes
+							long waitStart = System.currentTimeMillis();
+							detector.await(contextId, jobStatus, scope.limit(pollPolicy.nextDelay()));
+							wait += System.currentTimeMillis() - waitStart;
 						} else {
-							Log.error(LOGGER, "Message cannot be found");
+							wait += pollPolicy.sleep(scope);
 						}
-						try {
-							Thread.sleep(WAIT);
-						} catch (InterruptedException iex) {
+					} catch (InterruptedException iex) {
+						if (!scope.isCancelled()) {
 							Log.error(LOGGER, "Sleep interrupted", iex);
 						}
-					}		
-				} else {
-					Log.error(LOGGER, 
-							"Exported GZ files already exist for " + 
-							"Custom field: [" + customField.getFieldName() + "] (" + customField.getFieldId() + ") " + 
-							"Context: " + contextId + 
-							", please delete them from export directory first");
-					result.addItem(customField, contextId, "Exported GZ files already exists in export directory", null);
-				}
-				Log.info(LOGGER, "Verification ended for " + getName() + ": " + completed);
+					}
+				}		
 			} else {
-				Log.info(LOGGER, "Export button not found");
-				result.addItem(customField, contextId, "Export button not found", null);
+				Log.error(LOGGER, 
+						"Exported GZ files already exist for " + 
+						"Custom field: [" + customField.getFieldName() + "] (" + customField.getFieldId() + ") " + 
+						"Context: " + contextId + 
+						", please delete them from export directory first");
+				result.addItem(customField, contextId, "Exported GZ files already exists in export directory", null);
 			}
+			Log.info(LOGGER, "Verification ended for " + getName() + ": " + completed);
 		} catch (Exception ex) {
-			Log.error(LOGGER, "Exception for " + 
-					"Custom field: [" + customField.getFieldName() + "] (" + customField.getFieldId() + ") " + 
-					"Context: " + contextId,
-					ex);
-			result.addItem(customField, contextId, ex.getMessage(), null);
+			if (scope.isCancelled()) {
+				// Client closed or thread interrupted by cancellation
+				Log.error(LOGGER, "Cancelled " + getName() + ": " + scope.getCancelReason());
+				result.addItem(customField, contextId, "Cancelled: " + scope.getCancelReason(), null);
+			} else {
+				Log.error(LOGGER, "Exception for " + 
+						"Custom field: [" + customField.getFieldName() + "] (" + customField.getFieldId() + ") " + 
+						"Context: " + contextId,
+						ex);
+				if (governor != null) {
+					governor.recordError();
+				}
+				result.addItem(customField, contextId, ex.getMessage(), null);
+			}
+		} finally {
+			if (node != null) {
+				nodes.release(node);
+			}
+			if (detector != null) {
+				detector.unregister(contextId);
+			}
+			scope.close();
+			queueScope.close();
 		}
+		journal.record(customField, contextId, result);
+		stats.record(engineName, getName() + " @ " + ((node == null)? "-" : node.getName()), sample);
+		Log.info(LOGGER, "Progress page polled " + pollPolicy.getPollCount() + " time(s) for " + getName());
 		Instant endTime = Instant.now();
 		Duration elapsed = Duration.between(
 				LocalTime.from(startTime.atZone(ZoneId.systemDefault())), 
@@ -0,0 +1,294 @@
+package com.igsl;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Watches Checklist for Jira export directory on behalf of all monitors.
+ *
+ * Uses WatchService where supported.
+ * On network file systems (where WatchService does not see changes made by other hosts),
+ * or if configured to, a single scanner lists the directory with an adaptive interval instead.
+ *
+ * New GZ files are dispatched to the monitor registered for their (fieldId, contextId).
+ */
+public class ExportDirectoryWatcher implements Runnable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final Pattern GZ_PATTERN = Pattern.compile("customfield_([0-9]+)-([0-9]+)-([0-9]+)\\.gz");
+	private static final String GZ_GLOB = "customfield_*.gz";
+
+	public static final String MODE_AUTO = "auto";
+	public static final String MODE_WATCH = "watch";
+	public static final String MODE_SCAN = "scan";
+
+	// File system types where WatchService cannot be relied on
+	private static final List<String> NETWORK_FILE_SYSTEMS =
+			Arrays.asList("nfs", "nfs4", "cifs", "smb", "smbfs", "fuse.sshfs");
+
+	private static final Map<Path, ExportDirectoryWatcher> INSTANCES = new ConcurrentHashMap<>();
+
+	/**
+	 * Files of a (fieldId, contextId) delivered to a monitor.
+	 */
+	public static class Subscription implements AutoCloseable {
+		private List<ExportDirectoryWatcher> watchers = new ArrayList<>();
+		private String key;
+		private BlockingQueue<Path> queue = new LinkedBlockingQueue<>();
+		private Subscription(String key) {
+			this.key = key;
+		}
+		/**
+		 * Wait for next file, up to timeout.
+		 * A file can be delivered more than once if it is modified after creation.
+		 * @return Path, or null if timed out.
+		 */
+		public Path poll(long timeout, TimeUnit unit) throws InterruptedException {
+			return queue.poll(timeout, unit);
+		}
+		/**
+		 * Retrieve all files delivered so far without waiting.
+		 */
+		public List<Path> drain() {
+			List<Path> result = new ArrayList<>();
+			queue.drainTo(result);
+			return result;
+		}
+		@Override
+		public void close() {
+			for (ExportDirectoryWatcher watcher : watchers) {
+				watcher.unregister(this);
+			}
+		}
+	}
+
+	private Path directory;
+	private Config conf;
+	private WatchService watchService;
+	private Thread thread;
+	private volatile boolean running = true;
+	// Key is [fieldId]-[contextId]
+	private Map<String, Set<Path>> knownFiles = new HashMap<>();
+	private Map<String, Subscription> subscriptions = new HashMap<>();
+	private List<Consumer<Path>> listeners = new CopyOnWriteArrayList<>();
+	private long scanCount = 0;
+
+	/**
+	 * Get shared watcher for directory.
+	 */
+	public static ExportDirectoryWatcher getInstance(Config conf, Path directory) {
+		return INSTANCES.computeIfAbsent(directory.toAbsolutePath().normalize(),
+				dir -> new ExportDirectoryWatcher(conf, dir));
+	}
+
+	/**
+	 * Stop all watchers.
+	 */
+	public static void closeAll() {
+		for (ExportDirectoryWatcher watcher : INSTANCES.values()) {
+			watcher.stop();
+		}
+		INSTANCES.clear();
+	}
+
+	/**
+	 * Forget files of a (fieldId, contextId) removed from directory, so files exported again are dispatched.
+	 */
+	public static void forget(Path directory, String fieldId, String contextId) {
+		ExportDirectoryWatcher watcher = INSTANCES.get(directory.toAbsolutePath().normalize());
+		if (watcher != null) {
+			synchronized (watcher) {
+				watcher.knownFiles.remove(fieldId + "-" + contextId);
+			}
+		}
+	}
+
+	private ExportDirectoryWatcher(Config conf, Path directory) {
+		this.conf = conf;
+		this.directory = directory;
+		String mode = conf.getExportDirWatchMode();
+		if (MODE_AUTO.equalsIgnoreCase(mode)) {
+			try {
+				String type = Files.getFileStore(directory).type();
+				if (NETWORK_FILE_SYSTEMS.contains(type.toLowerCase())) {
+					Log.info(LOGGER, "Export directory [" + directory + "] is on " + type + ", scanner will be used");
+					mode = MODE_SCAN;
+				} else {
+					mode = MODE_WATCH;
+				}
+			} catch (IOException ioex) {
+				Log.warn(LOGGER, "Unable to determine file system type of [" + directory + "], scanner will be used");
+				mode = MODE_SCAN;
+			}
+		}
+		if (MODE_WATCH.equalsIgnoreCase(mode)) {
+			try {
+				watchService = FileSystems.getDefault().newWatchService();
+				directory.register(watchService,
+						StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+			} catch (IOException | UnsupportedOperationException ex) {
+				Log.warn(LOGGER, "WatchService not supported for [" + directory + "], scanner will be used");
+				watchService = null;
+			}
+		}
+		// Take initial snapshot before any monitor registers
+		scan();
+		thread = new Thread(this, "ExportDirectoryWatcher");
+		thread.setDaemon(true);
+		thread.start();
+		Log.info(LOGGER, "Watching [" + directory + "] using " + ((watchService != null)? "WatchService" : "scanner"));
+	}
+
+	/**
+	 * Register monitor for a (fieldId, contextId) exported to any of the directories, 
+	 * several when the node is not known.
+	 * Files already present are delivered immediately.
+	 */
+	public static Subscription register(Config conf, List<Path> directories, String fieldId, String contextId) {
+		Subscription sub = new Subscription(fieldId + "-" + contextId);
+		for (Path directory : directories) {
+			getInstance(conf, directory).add(sub);
+		}
+		return sub;
+	}
+
+	private synchronized void add(Subscription sub) {
+		sub.watchers.add(this);
+		subscriptions.put(sub.key, sub);
+		Set<Path> files = knownFiles.get(sub.key);
+		if (files != null) {
+			sub.queue.addAll(files);
+		}
+	}
+
+	/**
+	 * Notify listener of each new file of any (fieldId, contextId).
+	 * Files present before the listener is added are not reported.
+	 */
+	public void addListener(Consumer<Path> listener) {
+		listeners.add(listener);
+	}
+
+	private synchronized void unregister(Subscription sub) {
+		subscriptions.remove(sub.key, sub);
+	}
+
+	private synchronized void dispatch(Path file, boolean modified) {
+		Matcher m = GZ_PATTERN.matcher(file.getFileName().toString());
+		if (m.matches()) {
+			String key = m.group(1) + "-" + m.group(2);
+			Set<Path> files = knownFiles.get(key);
+			if (files == null) {
+				files = new HashSet<>();
+				knownFiles.put(key, files);
+			}
+			boolean added = files.add(file);
+			Subscription sub = subscriptions.get(key);
+			if (sub != null && (added || modified)) {
+				Log.debug(LOGGER, "Dispatching [" + file + "]");
+				sub.queue.offer(file);
+			}
+			if (added) {
+				for (Consumer<Path> listener : listeners) {
+					listener.accept(file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * List directory once and dispatch files not seen before.
+	 * @return true if new files are found.
+	 */
+	private boolean scan() {
+		int before;
+		synchronized (this) {
+			before = knownFiles.values().stream().mapToInt(Set::size).sum();
+		}
+		scanCount++;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, GZ_GLOB)) {
+			for (Path p : stream) {
+				dispatch(p, false);
+			}
+		} catch (IOException ioex) {
+			Log.error(LOGGER, "Unable to list export directory [" + directory + "]", ioex);
+		}
+		synchronized (this) {
+			return knownFiles.values().stream().mapToInt(Set::size).sum() != before;
+		}
+	}
+
+	private void stop() {
+		running = false;
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException ioex) {
+				Log.error(LOGGER, "Unable to close WatchService", ioex);
+			}
+		}
+		thread.interrupt();
+		Log.info(LOGGER, "Stopped watching [" + directory + "], directory scans: " + scanCount);
+	}
+
+	@Override
+	public void run() {
+		// Interval doubles while no new file appears
+		PollPolicy scanPolicy = new PollPolicy(conf.getExportDirScanMinMS(), conf.getExportDirScanMaxMS(), 2, 0);
+		while (running) {
+			try {
+				if (watchService != null) {
+					WatchKey key = watchService.take();
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+							// Events lost, fall back to listing
+							scan();
+						} else {
+							Path file = directory.resolve((Path) event.context());
+							dispatch(file, event.kind() == StandardWatchEventKinds.ENTRY_MODIFY);
+						}
+					}
+					if (!key.reset()) {
+						Log.error(LOGGER, "Export directory [" + directory + "] is no longer accessible");
+						break;
+					}
+				} else {
+					Thread.sleep(scanPolicy.nextDelay());
+					if (scan()) {
+						scanPolicy.progress();
+					}
+				}
+			} catch (InterruptedException | ClosedWatchServiceException ex) {
+				// Stopped
+				break;
+			}
+		}
+	}
+}
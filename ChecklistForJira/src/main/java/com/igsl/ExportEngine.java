@@ -0,0 +1,70 @@
+package com.igsl;
+
+import java.net.URL;
+import java.util.Map;
+
+import com.igsl.mybatis.CustomField;
+
+/**
+ * Drives Checklist for Jira export pages in Jira.
+ * Implementations must be safe to use from multiple threads.
+ * Each call must end by the deadline of its scope, and promptly when the scope is cancelled.
+ */
+public interface ExportEngine extends AutoCloseable {
+
+	public static final String ENGINE_HTMLUNIT = "htmlunit";
+	public static final String ENGINE_HTTP = "http";
+
+	/**
+	 * Create engine selected by name.
+	 */
+	public static ExportEngine create(Config conf, String name) {
+		if (ENGINE_HTTP.equalsIgnoreCase(name)) {
+			return new HttpExportEngine(conf);
+		}
+		return new HtmlUnitExportEngine(conf);
+	}
+
+	/**
+	 * Thrown by {@link #getProgressMessage(URL, ExportScope)} when progress page returns an error status.
+	 * Progress page can be polled again.
+	 */
+	public static class ProgressPageException extends Exception {
+		private static final long serialVersionUID = 1L;
+		public ProgressPageException(String message) {
+			super(message);
+		}
+	}
+
+	public String getName();
+
+	/**
+	 * Find export page of each context of custom field.
+	 * @return Map of context ID (fieldConfigId) to export page URL, in page order.
+	 */
+	public Map<String, URL> getExportPages(CustomField customField, ExportScope scope) throws Exception;
+
+	/**
+	 * Check if Export button on export page is enabled.
+	 * It is disabled when exported GZ files already exist.
+	 * @throws Exception If Export button is not found.
+	 */
+	public boolean isExportEnabled(URL exportPage, ExportScope scope) throws Exception;
+
+	/**
+	 * Click Export button on export page.
+	 * @return URL of progress page, or null if Export button is disabled.
+	 * @throws Exception If Export button is not found.
+	 */
+	public URL startExport(URL exportPage, ExportScope scope) throws Exception;
+
+	/**
+	 * Read status message from progress page.
+	 * @return Message, or null if not found.
+	 * @throws ProgressPageException If progress page returns an error status.
+	 */
+	public String getProgressMessage(URL progressPage, ExportScope scope) throws Exception;
+
+	@Override
+	public void close();
+}
@@ -0,0 +1,48 @@
+package com.igsl;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.igsl.mybatis.CustomField;
+
+/**
+ * Compare CPU time and heap allocation per context of each export engine.
+ *
+ * Only reads pages: contexts of each custom field are listed and each export page is loaded.
+ * No export is triggered.
+ */
+public class ExportEngineBenchmark {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final String[] ENGINES = { ExportEngine.ENGINE_HTMLUNIT, ExportEngine.ENGINE_HTTP };
+
+	public static void run(Config conf, List<CustomField> fieldList) {
+		ExportEngineStats stats = new ExportEngineStats();
+		for (String name : ENGINES) {
+			long start = System.currentTimeMillis();
+			try (ExportEngine engine = ExportEngine.create(conf, name); 
+				ExportScope scope = ExportScope.root("Benchmark " + name, 0)) {
+				for (CustomField field : fieldList) {
+					ExportEngineStats.Sample sample = ExportEngineStats.start();
+					Map<String, URL> pages = engine.getExportPages(field, scope);
+					Log.info(LOGGER, "Engine [" + name + "] customfield_" + field.getFieldId() + 
+							" " + pages.size() + " context(s) found: " + ExportEngineStats.describe(sample));
+					for (Map.Entry<String, URL> page : pages.entrySet()) {
+						sample = ExportEngineStats.start();
+						boolean enabled = engine.isExportEnabled(page.getValue(), scope);
+						stats.record(name, "customfield_" + field.getFieldId() + "-" + page.getKey() +
+								" export enabled: " + enabled, sample);
+					}
+				}
+			} catch (Exception ex) {
+				Log.error(LOGGER, "Engine [" + name + "] failed", ex);
+			}
+			Log.info(LOGGER, "Engine [" + name + "] elapsed: " + (System.currentTimeMillis() - start) + " ms");
+		}
+		stats.print();
+	}
+}
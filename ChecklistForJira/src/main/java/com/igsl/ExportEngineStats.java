@@ -0,0 +1,166 @@
+package com.igsl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * CPU time and heap allocation per context for each export engine.
+ *
+ * Measured on the thread handling the context using ThreadMXBean,
+ * so work done on other threads (e.g. HttpClient selector, HtmlUnit JavaScript) is not included.
+ * Values not supported by the JVM are reported as -1.
+ */
+public class ExportEngineStats {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private static final ThreadMXBean MX_BEAN = ManagementFactory.getThreadMXBean();
+	private static final boolean CPU_SUPPORTED = isCpuSupported();
+	// Heap allocation per thread is an extension of HotSpot JVMs, null if not available
+	private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+
+	/**
+	 * Snapshot of current thread.
+	 */
+	public static class Sample {
+		private long cpuNanos;
+		private long allocatedBytes;
+		private Sample() {
+			this.cpuNanos = getCurrentCpuNanos();
+			this.allocatedBytes = getCurrentAllocatedBytes();
+		}
+	}
+
+	private static class Total {
+		int contextCount;
+		int cpuCount;	// Contexts with CPU time
+		long cpuNanos;
+		int allocatedCount;	// Contexts with heap allocation
+		long allocatedBytes;
+		long maxAllocatedBytes = -1;
+	}
+
+	private static boolean isCpuSupported() {
+		try {
+			if (MX_BEAN.isCurrentThreadCpuTimeSupported()) {
+				if (!MX_BEAN.isThreadCpuTimeEnabled()) {
+					MX_BEAN.setThreadCpuTimeEnabled(true);
+				}
+				return true;
+			}
+		} catch (UnsupportedOperationException | SecurityException ex) {
+			Log.warn(LOGGER, "Thread CPU time not available: " + ex.getMessage());
+		}
+		return false;
+	}
+
+	private static com.sun.management.ThreadMXBean getAllocationBean() {
+		try {
+			if (MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) MX_BEAN;
+				if (bean.isThreadAllocatedMemorySupported()) {
+					if (!bean.isThreadAllocatedMemoryEnabled()) {
+						bean.setThreadAllocatedMemoryEnabled(true);
+					}
+					return bean;
+				}
+			}
+		} catch (LinkageError | UnsupportedOperationException | SecurityException ex) {
+			// com.sun.management not provided by this JVM
+		}
+		Log.warn(LOGGER, "Thread heap allocation not available");
+		return null;
+	}
+
+	private static long getCurrentCpuNanos() {
+		return CPU_SUPPORTED? MX_BEAN.getCurrentThreadCpuTime() : -1;
+	}
+
+	private static long getCurrentAllocatedBytes() {
+		return (ALLOCATION_BEAN != null)? 
+				ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+	}
+
+	/**
+	 * Difference of two readings, -1 if either is not available.
+	 */
+	private static long diff(long end, long start) {
+		return (end < 0 || start < 0)? -1 : end - start;
+	}
+
+	// Key is engine name
+	private Map<String, Total> totals = new TreeMap<>();
+
+	public static Sample start() {
+		return new Sample();
+	}
+
+	/**
+	 * Describe usage since start, on the same thread.
+	 */
+	public static String describe(Sample start) {
+		Sample end = new Sample();
+		long cpuNanos = diff(end.cpuNanos, start.cpuNanos);
+		return	"CPU: " + ((cpuNanos < 0)? -1 : cpuNanos / 1000000) + " ms, " +
+				"Allocated: " + diff(end.allocatedBytes, start.allocatedBytes) + " byte(s)";
+	}
+
+	/**
+	 * CPU time since start, on the same thread. -1 if not available.
+	 */
+	public static long getCpuNanos(Sample start) {
+		return diff(getCurrentCpuNanos(), start.cpuNanos);
+	}
+
+	/**
+	 * Heap allocated since start, on the same thread. -1 if not available.
+	 */
+	public static long getAllocatedBytes(Sample start) {
+		return diff(getCurrentAllocatedBytes(), start.allocatedBytes);
+	}
+
+	/**
+	 * Record usage of a context since start, on the same thread.
+	 */
+	public void record(String engine, String name, Sample start) {
+		Sample end = new Sample();
+		long cpuNanos = diff(end.cpuNanos, start.cpuNanos);
+		long allocatedBytes = diff(end.allocatedBytes, start.allocatedBytes);
+		Log.info(LOGGER, "Engine [" + engine + "] " + name + ": " +
+				"CPU: " + ((cpuNanos < 0)? -1 : cpuNanos / 1000000) + " ms, " +
+				"Allocated: " + allocatedBytes + " byte(s)");
+		synchronized (this) {
+			Total total = totals.computeIfAbsent(engine, key -> new Total());
+			total.contextCount++;
+			if (cpuNanos >= 0) {
+				total.cpuCount++;
+				total.cpuNanos += cpuNanos;
+			}
+			if (allocatedBytes >= 0) {
+				total.allocatedCount++;
+				total.allocatedBytes += allocatedBytes;
+				total.maxAllocatedBytes = Math.max(total.maxAllocatedBytes, allocatedBytes);
+			}
+		}
+	}
+
+	public synchronized void print() {
+		for (Map.Entry<String, Total> entry : totals.entrySet()) {
+			Total total = entry.getValue();
+			if (total.contextCount == 0) {
+				continue;
+			}
+			Log.info(LOGGER, "Engine [" + entry.getKey() + "] " +
+					"Contexts: " + total.contextCount + ", " +
+					"Average CPU: " + ((total.cpuCount == 0)? -1 : total.cpuNanos / total.cpuCount / 1000000) + " ms, " +
+					"Average allocated: " + ((total.allocatedCount == 0)? -1 : total.allocatedBytes / total.allocatedCount) + 
+						" byte(s), " +
+					"Max allocated: " + total.maxAllocatedBytes + " byte(s)");
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package com.igsl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.igsl.mybatis.ContextIssueCount;
+import com.igsl.mybatis.CustomField;
+import com.igsl.mybatis.DataMapper;
+
+/**
+ * Estimates how long exporting each context takes, in milliseconds.
+ *
+ * Median duration in export history is used if available, then duration recorded in the export journal.
+ * Otherwise the no. of issues with a checklist value in the context (from the database) 
+ * is multiplied by the milliseconds per issue observed in history and journal, or exportMSPerIssue if none.
+ */
+public class ExportEstimator {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	// Key is [fieldId]-[contextId]
+	private Map<String, Long> issueCounts = new HashMap<>();
+	private Map<String, Long> durations = new HashMap<>();
+	private double msPerIssue;
+
+	private static String getKey(String fieldId, String contextId) {
+		return fieldId + "-" + contextId;
+	}
+
+	public static ExportEstimator create(Config conf, ExportJournal journal, ExportHistory history) {
+		ExportEstimator estimator = new ExportEstimator();
+		estimator.msPerIssue = conf.getExportMSPerIssue();
+		if (conf.getSourceDatabaseURL() != null && !conf.getSourceDatabaseURL().isEmpty()) {
+			try {
+				SqlSessionFactory factory = ChecklistForJira.setupMyBatis(conf);
+				try (SqlSession session = factory.openSession()) {
+					DataMapper mapper = session.getMapper(DataMapper.class);
+					for (ContextIssueCount count : mapper.getContextIssueCounts()) {
+						estimator.issueCounts.put(
+								getKey(count.getFieldId(), count.getContextId()), count.getIssueCount());
+					}
+				}
+				Log.info(LOGGER, "Issue counts loaded for " + estimator.issueCounts.size() + " context(s)");
+			} catch (Exception ex) {
+				Log.warn(LOGGER, "Unable to read issue counts from database, estimates will use journal only: " + ex.getMessage());
+			}
+		}
+		long totalDuration = 0;
+		long totalIssues = 0;
+		for (Map.Entry<String, ExportJournal.Entry> entry : journal.getEntries().entrySet()) {
+			long duration = entry.getValue().getDuration();
+			if (duration >= 0) {
+				estimator.durations.put(entry.getKey(), duration);
+				Long issueCount = estimator.issueCounts.get(entry.getKey());
+				if (issueCount != null) {
+					totalDuration += duration;
+					totalIssues += issueCount;
+				}
+			}
+		}
+		if (history != null) {
+			for (Map.Entry<String, List<ExportHistory.Sample>> entry : history.getEntries().entrySet()) {
+				long median = ExportHistory.percentile(entry.getValue(), 0.5);
+				if (median >= 0) {
+					estimator.durations.put(entry.getKey(), median);
+				}
+				for (ExportHistory.Sample sample : entry.getValue()) {
+					long issueCount = sample.getIssues();
+					if (issueCount < 0) {
+						issueCount = estimator.issueCounts.getOrDefault(entry.getKey(), -1L);
+					}
+					if (sample.getDuration() >= 0 && issueCount >= 0) {
+						totalDuration += sample.getDuration();
+						totalIssues += issueCount;
+					}
+				}
+			}
+		}
+		if (totalIssues > 0) {
+			// Calibrate with contexts exported before
+			estimator.msPerIssue = (double) totalDuration / totalIssues;
+		}
+		Log.info(LOGGER, "Estimating " + String.format("%.2f", estimator.msPerIssue) + " ms per issue");
+		return estimator;
+	}
+
+	/**
+	 * Estimate for context, 0 if nothing is known about it.
+	 */
+	public long estimate(CustomField customField, String contextId) {
+		return estimate(getKey(customField.getFieldId(), contextId));
+	}
+
+	/**
+	 * Estimate for context identified by [fieldId]-[contextId], 0 if nothing is known about it.
+	 */
+	public long estimate(String key) {
+		Long duration = durations.get(key);
+		if (duration != null) {
+			return duration;
+		}
+		Long issueCount = issueCounts.get(key);
+		if (issueCount != null) {
+			return (long) (issueCount * msPerIssue);
+		}
+		return 0;
+	}
+
+	/**
+	 * Time to run tasks in the order given, each starting on the first free slot.
+	 * @param durations Duration of each task in milliseconds.
+	 * @param slots No. of tasks that can run at the same time.
+	 * @return Milliseconds until the last task ends.
+	 */
+	public static long simulate(List<Long> durations, int slots) {
+		PriorityQueue<Long> freeAt = new PriorityQueue<>();
+		for (int i = 0; i < Math.max(1, slots); i++) {
+			freeAt.add(0L);
+		}
+		long finish = 0;
+		for (long duration : durations) {
+			long end = freeAt.poll() + duration;
+			finish = Math.max(finish, end);
+			freeAt.add(end);
+		}
+		return finish;
+	}
+
+	/**
+	 * Result of {@link #simulate(List, int, int, double)}.
+	 */
+	public static class Simulation {
+		private long makespan;
+		private int peak;
+		public long getMakespan() {
+			return makespan;
+		}
+		public int getPeak() {
+			return peak;
+		}
+	}
+
+	/**
+	 * Run tasks in the order given on nodes sharing a limit on running tasks.
+	 * Each task is placed on the node with fewest running tasks.
+	 * With contention k, a task on a node running n tasks progresses at 1 / (1 + k * (n - 1)) of its standalone speed.
+	 * With k = 0 and 1 node, result is the same as {@link #simulate(List, int)}.
+	 * @param durations Standalone duration of each task in milliseconds.
+	 * @param slots No. of tasks that can run at the same time across all nodes.
+	 * @param nodeCount No. of nodes.
+	 * @param contention k.
+	 */
+	public static Simulation simulate(List<Long> durations, int slots, int nodeCount, double contention) {
+		slots = Math.max(1, slots);
+		nodeCount = Math.max(1, nodeCount);
+		int[] load = new int[nodeCount];
+		// Running tasks: remaining work and node
+		List<double[]> running = new ArrayList<>();
+		double time = 0;
+		int next = 0;
+		Simulation result = new Simulation();
+		while (next < durations.size() || running.size() != 0) {
+			while (running.size() < slots && next < durations.size()) {
+				int node = 0;
+				for (int i = 1; i < nodeCount; i++) {
+					if (load[i] < load[node]) {
+						node = i;
+					}
+				}
+				load[node]++;
+				running.add(new double[] { durations.get(next), node });
+				next++;
+			}
+			result.peak = Math.max(result.peak, running.size());
+			// Advance to next completion
+			double step = Double.MAX_VALUE;
+			for (double[] task : running) {
+				double rate = 1 / (1 + contention * (load[(int) task[1]] - 1));
+				step = Math.min(step, task[0] / rate);
+			}
+			time += step;
+			int[] loadBefore = load.clone();
+			Iterator<double[]> it = running.iterator();
+			while (it.hasNext()) {
+				double[] task = it.next();
+				task[0] -= step / (1 + contention * (loadBefore[(int) task[1]] - 1));
+				if (task[0] <= 1e-6) {
+					load[(int) task[1]]--;
+					it.remove();
+				}
+			}
+		}
+		result.makespan = Math.round(time);
+		return result;
+	}
+}
@@ -0,0 +1,221 @@
+package com.igsl;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Local store of past exports of each context: duration, no. of GZ chunks and no. of issues.
+ *
+ * Kept as JSON in exportHistoryFile, keyed by [Field ID]-[Context ID], last exportHistorySize samples per context.
+ * Used to estimate durations, derive per-context timeouts and simulate runs.
+ * Loaded at start of triggerExport and saved at the end.
+ */
+public class ExportHistory {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final ObjectMapper OM = new ObjectMapper()
+			.enable(SerializationFeature.INDENT_OUTPUT)
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+	/**
+	 * One export of a context. -1 for values not known.
+	 */
+	public static class Sample {
+		private long time;	// When recorded
+		private long duration = -1;	// Milliseconds from start to verification
+		private int chunks = -1;
+		private long issues = -1;
+		private int parallel = -1;	// Contexts running on the same node when started, including this one
+		public long getTime() {
+			return time;
+		}
+		public void setTime(long time) {
+			this.time = time;
+		}
+		public long getDuration() {
+			return duration;
+		}
+		public void setDuration(long duration) {
+			this.duration = duration;
+		}
+		public int getChunks() {
+			return chunks;
+		}
+		public void setChunks(int chunks) {
+			this.chunks = chunks;
+		}
+		public long getIssues() {
+			return issues;
+		}
+		public void setIssues(long issues) {
+			this.issues = issues;
+		}
+		public int getParallel() {
+			return parallel;
+		}
+		public void setParallel(int parallel) {
+			this.parallel = parallel;
+		}
+	}
+
+	private Path file;
+	private int size;
+	private Map<String, List<Sample>> samples = new TreeMap<>();
+	private int recordCount = 0;
+
+	private ExportHistory(Path file, int size) {
+		this.file = file;
+		this.size = Math.max(1, size);
+	}
+
+	public static String getKey(String fieldId, String contextId) {
+		return fieldId + "-" + contextId;
+	}
+
+	/**
+	 * Load history from exportHistoryFile. Null if disabled.
+	 * If file does not exist or is invalid, history starts empty.
+	 */
+	public static ExportHistory create(Config conf) {
+		if (conf.getExportHistoryFile() == null || conf.getExportHistoryFile().isEmpty()) {
+			return null;
+		}
+		return load(Paths.get(conf.getExportHistoryFile()), conf.getExportHistorySize());
+	}
+
+	public static ExportHistory load(Path file, int size) {
+		ExportHistory history = new ExportHistory(file, size);
+		if (!Files.exists(file)) {
+			Log.info(LOGGER, "Export history [" + file + "] not found, it will be created");
+			return history;
+		}
+		try {
+			Map<String, List<Sample>> loaded = OM.readValue(file.toFile(),
+					new TypeReference<TreeMap<String, List<Sample>>>() {});
+			history.samples.putAll(loaded);
+			Log.info(LOGGER, "Export history [" + file + "] loaded for " + loaded.size() + " context(s)");
+		} catch (IOException ioex) {
+			Log.warn(LOGGER, "Unable to read export history [" + file + "], it will be recreated: " + ioex.getMessage());
+		}
+		return history;
+	}
+
+	/**
+	 * Add a sample for context. Issue count is taken from previous sample if not known.
+	 */
+	public synchronized void record(String fieldId, String contextId, long duration, int chunks, long issues, int parallel) {
+		List<Sample> list = samples.computeIfAbsent(getKey(fieldId, contextId), k -> new ArrayList<>());
+		if (issues < 0) {
+			for (int i = list.size() - 1; i >= 0 && issues < 0; i--) {
+				issues = list.get(i).issues;
+			}
+		}
+		Sample sample = new Sample();
+		sample.time = System.currentTimeMillis();
+		sample.duration = duration;
+		sample.chunks = chunks;
+		sample.issues = issues;
+		sample.parallel = parallel;
+		list.add(sample);
+		while (list.size() > size) {
+			list.remove(0);
+		}
+		recordCount++;
+	}
+
+	/**
+	 * Samples of context, oldest first.
+	 */
+	public synchronized List<Sample> get(String fieldId, String contextId) {
+		List<Sample> list = samples.get(getKey(fieldId, contextId));
+		return (list == null)? Collections.emptyList() : new ArrayList<>(list);
+	}
+
+	/**
+	 * Copy of all samples.
+	 */
+	public synchronized Map<String, List<Sample>> getEntries() {
+		Map<String, List<Sample>> result = new TreeMap<>();
+		samples.forEach((key, list) -> result.put(key, new ArrayList<>(list)));
+		return result;
+	}
+
+	/**
+	 * Percentile (nearest rank) of known durations of context.
+	 * @param p 0 to 1.
+	 * @return Milliseconds, -1 if no duration is known.
+	 */
+	public long getDuration(String fieldId, String contextId, double p) {
+		return percentile(get(fieldId, contextId), p);
+	}
+
+	public static long percentile(List<Sample> list, double p) {
+		List<Long> durations = new ArrayList<>();
+		for (Sample sample : list) {
+			if (sample.duration >= 0) {
+				durations.add(sample.duration);
+			}
+		}
+		if (durations.size() == 0) {
+			return -1;
+		}
+		Collections.sort(durations);
+		int rank = (int) Math.ceil(Math.min(1, Math.max(0, p)) * durations.size());
+		return durations.get(Math.max(0, rank - 1));
+	}
+
+	/**
+	 * Max. wait for context.
+	 * With adaptiveTimeout, adaptiveTimeoutMultiplier x p95 of past durations,
+	 * no less than adaptiveTimeoutMinMS and no more than exportMaxWaitMS.
+	 * exportMaxWaitMS if adaptiveTimeout is off or context has no history.
+	 */
+	public long getTimeout(Config conf, String fieldId, String contextId) {
+		if (!conf.isAdaptiveTimeout()) {
+			return conf.getExportMaxWaitMS();
+		}
+		long p95 = getDuration(fieldId, contextId, 0.95);
+		if (p95 < 0) {
+			return conf.getExportMaxWaitMS();
+		}
+		long timeout = Math.max(conf.getAdaptiveTimeoutMinMS(), (long) (p95 * conf.getAdaptiveTimeoutMultiplier()));
+		return Math.min(timeout, conf.getExportMaxWaitMS());
+	}
+
+	/**
+	 * Write history to file, replacing it atomically.
+	 */
+	public synchronized void save() throws IOException {
+		Path dir = file.toAbsolutePath().getParent();
+		Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+		try {
+			OM.writeValue(temp.toFile(), samples);
+			try {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException amnsex) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		Log.info(LOGGER, "Export history [" + file + "] saved for " + samples.size() + " context(s), " +
+				recordCount + " sample(s) added");
+	}
+}
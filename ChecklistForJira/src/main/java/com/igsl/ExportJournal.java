@@ -0,0 +1,267 @@
+package com.igsl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.igsl.mybatis.CustomField;
+
+/**
+ * Append-only journal of export state of each (field, context), so an interrupted triggerExport can resume.
+ *
+ * Each line is: [Timestamp] TAB [Field ID] TAB [Context ID] TAB [State] TAB [Detail]
+ * Detail is the error message for FAILED, or the verified files separated by | for VERIFIED.
+ * Each line is flushed to disk before returning. The last state of a context wins on replay.
+ * An incomplete last line (crash during write) is ignored.
+ */
+public class ExportJournal implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final String SEPARATOR = "\t";
+	private static final String FILE_SEPARATOR = "|";
+
+	public static enum State {
+		TRIGGERED,
+		IN_PROGRESS,
+		VERIFIED,
+		FAILED
+	}
+
+	public static class Entry {
+		private State state;
+		private String detail;
+		private long startTime;	// When TRIGGERED or IN_PROGRESS was first recorded
+		private long endTime;	// When VERIFIED was recorded
+		public State getState() {
+			return state;
+		}
+		public String getDetail() {
+			return detail;
+		}
+		/**
+		 * When TRIGGERED or IN_PROGRESS was first recorded, 0 if unknown.
+		 */
+		public long getStartTime() {
+			return startTime;
+		}
+		/**
+		 * Milliseconds from trigger to verification, or -1 if not verified.
+		 */
+		public long getDuration() {
+			if (state == State.VERIFIED && startTime > 0 && endTime >= startTime) {
+				return endTime - startTime;
+			}
+			return -1;
+		}
+		/**
+		 * Files of VERIFIED entry.
+		 */
+		public List<String> getFiles() {
+			if (state != State.VERIFIED || detail == null || detail.isEmpty()) {
+				return Collections.emptyList();
+			}
+			return Arrays.asList(detail.split("\\" + FILE_SEPARATOR));
+		}
+	}
+
+	private Path file;
+	private FileChannel channel;
+	// Key is [fieldId]-[contextId]
+	private Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private ExportJournal(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Journal that records nothing, used when no journal file is specified.
+	 */
+	public static ExportJournal disabled() {
+		return new ExportJournal(null);
+	}
+
+	/**
+	 * Replay existing journal file and open it for append.
+	 */
+	public static ExportJournal open(Path file) throws IOException {
+		ExportJournal journal = new ExportJournal(file);
+		// Last line not ending with line break was cut off by a crash during write
+		boolean terminate = false;
+		if (Files.exists(file) && Files.size(file) != 0) {
+			try (SeekableByteChannel in = Files.newByteChannel(file, StandardOpenOption.READ)) {
+				ByteBuffer last = ByteBuffer.allocate(1);
+				in.position(in.size() - 1).read(last);
+				terminate = (last.get(0) != '\n');
+			}
+		}
+		int lineCount = 0;
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line = reader.readLine();
+			while (line != null) {
+				String next = reader.readLine();
+				if (next == null && terminate) {
+					// Even with 5 fields, e.g. VERIFIED with a truncated file list
+					Log.warn(LOGGER, "Ignored incomplete journal line: " + line);
+					break;
+				}
+				String[] values = line.split(SEPARATOR, -1);
+				if (values.length != 5) {
+					Log.warn(LOGGER, "Ignored incomplete journal line: " + line);
+				} else {
+					try {
+						journal.update(getKey(values[1], values[2]), 
+								State.valueOf(values[3]), values[4], Long.parseLong(values[0]));
+						lineCount++;
+					} catch (IllegalArgumentException iaex) {
+						Log.warn(LOGGER, "Ignored invalid journal line: " + line);
+					}
+				}
+				line = next;
+			}
+		} catch (NoSuchFileException nsfex) {
+			// New journal
+		}
+		journal.channel = FileChannel.open(file,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		if (terminate) {
+			// Terminate incomplete last line so the next entry starts on its own line
+			journal.channel.write(ByteBuffer.wrap("\n".getBytes(StandardCharsets.UTF_8)));
+			journal.channel.force(false);
+		}
+		Log.info(LOGGER, "Export journal [" + file + "] replayed " + lineCount + " line(s), " +
+				journal.entries.size() + " context(s)");
+		return journal;
+	}
+
+	private Entry update(String key, State state, String detail, long time) {
+		Entry previous = entries.get(key);
+		Entry entry = new Entry();
+		entry.state = state;
+		entry.detail = detail;
+		if (state == State.TRIGGERED || state == State.IN_PROGRESS) {
+			boolean running = (previous != null && 
+					(previous.state == State.TRIGGERED || previous.state == State.IN_PROGRESS));
+			entry.startTime = running? previous.startTime : time;
+		} else if (previous != null) {
+			entry.startTime = previous.startTime;
+		}
+		if (state == State.VERIFIED) {
+			entry.endTime = time;
+		}
+		entries.put(key, entry);
+		return entry;
+	}
+
+	private static String getKey(String fieldId, String contextId) {
+		return fieldId + "-" + contextId;
+	}
+
+	private static String clean(String s) {
+		if (s == null) {
+			return "";
+		}
+		return s.replace(SEPARATOR, " ").replace("\r", " ").replace("\n", " ");
+	}
+
+	public boolean isEnabled() {
+		return (file != null);
+	}
+
+	/**
+	 * Get last state of context, or null if not found.
+	 */
+	public Entry get(CustomField customField, String contextId) {
+		return entries.get(getKey(customField.getFieldId(), contextId));
+	}
+
+	/**
+	 * Last entry of each context. Key is [fieldId]-[contextId].
+	 */
+	public Map<String, Entry> getEntries() {
+		return Collections.unmodifiableMap(entries);
+	}
+
+	/**
+	 * Result of a context verified in a previous run.
+	 */
+	public ExportResult getResult(CustomField customField, String contextId) {
+		ExportResult result = new ExportResult();
+		Entry entry = get(customField, contextId);
+		if (entry != null) {
+			for (String f : entry.getFiles()) {
+				result.addItem(customField, contextId, null, f);
+			}
+		}
+		return result;
+	}
+
+	public void record(CustomField customField, String contextId, State state, String detail) {
+		if (!isEnabled()) {
+			return;
+		}
+		long time = System.currentTimeMillis();
+		String line = time + SEPARATOR +
+				customField.getFieldId() + SEPARATOR +
+				contextId + SEPARATOR +
+				state + SEPARATOR +
+				clean(detail) + "\n";
+		ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+		synchronized (this) {
+			try {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(false);
+			} catch (IOException ioex) {
+				Log.error(LOGGER, "Unable to write export journal [" + file + "]", ioex);
+			}
+			update(getKey(customField.getFieldId(), contextId), state, clean(detail), time);
+		}
+	}
+
+	/**
+	 * Record result of a context.
+	 */
+	public void record(CustomField customField, String contextId, ExportResult result) {
+		List<String> files = new ArrayList<>();
+		String errorMessage = null;
+		for (ExportResult.ResultItem item : result.getResultMap().values()) {
+			files.addAll(item.getFiles());
+			if (item.getErrorMessage() != null) {
+				errorMessage = item.getErrorMessage();
+			}
+		}
+		if (files.size() != 0) {
+			record(customField, contextId, State.VERIFIED, String.join(FILE_SEPARATOR, files));
+		} else {
+			record(customField, contextId, State.FAILED, (errorMessage != null)? errorMessage : "Not verified");
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ioex) {
+				Log.error(LOGGER, "Unable to close export journal [" + file + "]", ioex);
+			}
+		}
+	}
+}
@@ -10,8 +10,16 @@ import com.igsl.mybatis.CustomField;
 public class ExportResult {
 	
 	public static class ResultItem {
+		CustomField customField;
+		String contextId;
 		String errorMessage;
 		List<String> files = new ArrayList<>();
+		public CustomField getCustomField() {
+			return customField;
+		}
+		public String getContextId() {
+			return contextId;
+		}
 		public String getErrorMessage() {
 			return errorMessage;
 		}
@@ -35,7 +43,10 @@ public class ExportResult {
 	public void addItem(CustomField cf, String contextId, String errorMessage, String file) {
 		String name = "Field: " + cf.getFieldName() + " File: customfield_" + cf.getFieldId() + "-" + contextId;
 		if (!resultMap.containsKey(name)) {
-			resultMap.put(name, new ResultItem());
+			ResultItem item = new ResultItem();
+			item.customField = cf;
+			item.contextId = contextId;
+			resultMap.put(name, item);
 		}
 		if (errorMessage != null) {
 			resultMap.get(name).setErrorMessage(errorMessage);
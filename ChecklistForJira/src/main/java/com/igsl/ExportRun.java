@@ -0,0 +1,54 @@
+package com.igsl;
+
+/**
+ * Collaborators shared by all fields and contexts of one triggerExport run.
+ * Built once in ChecklistForJira.triggerExport() and passed to each thread.
+ */
+public class ExportRun {
+
+	private SourceNodePool nodes;
+	private ExportEngineStats stats;
+	private ExportJournal journal;
+	private ConcurrencyGovernor governor;	// Null if concurrency is fixed
+	private JobCompletionDetector detector;	// Null to read progress page
+	private ExportArchiver archiver;	// Null to leave existing GZ files
+	private ExportHistory history;	// Null if disabled
+
+	public ExportRun(SourceNodePool nodes, ExportEngineStats stats, ExportJournal journal, ConcurrencyGovernor governor, JobCompletionDetector detector, ExportArchiver archiver, ExportHistory history) {
+		this.nodes = nodes;
+		this.stats = stats;
+		this.journal = journal;
+		this.governor = governor;
+		this.detector = detector;
+		this.archiver = archiver;
+		this.history = history;
+	}
+
+	public SourceNodePool getNodes() {
+		return nodes;
+	}
+
+	public ExportEngineStats getStats() {
+		return stats;
+	}
+
+	public ExportJournal getJournal() {
+		return journal;
+	}
+
+	public ConcurrencyGovernor getGovernor() {
+		return governor;
+	}
+
+	public JobCompletionDetector getDetector() {
+		return detector;
+	}
+
+	public ExportArchiver getArchiver() {
+		return archiver;
+	}
+
+	public ExportHistory getHistory() {
+		return history;
+	}
+}
@@ -0,0 +1,345 @@
+package com.igsl;
+
+import java.lang.reflect.Method;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs export of all custom fields and their contexts on one executor.
+ *
+ * Field discovery ({@link ExportThread}) and context exports are queued separately,
+ * each with its own limit on how many run at once.
+ * The context limit applies across all fields.
+ * A thread is only started when a task is allowed to run, so queued tasks cost nothing.
+ *
+ * With exportOrder "longest", contexts are held until all fields are discovered,
+ * then started longest estimate first, so a large context does not start last and delay the whole run.
+ *
+ * Finished tasks are delivered through a completion queue, so results are collected as soon as they are ready.
+ * Every etaIntervalMS, progress and ETA are logged, from estimates of queued contexts and time left of running ones.
+ * Virtual threads are used when the Java runtime supports them.
+ */
+public class ExportScheduler implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final SimpleDateFormat SDF = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+	public static final String ORDER_FIFO = "fifo";
+	public static final String ORDER_LONGEST = "longest";
+
+	/**
+	 * Task in queue.
+	 */
+	private static class Queued<T> {
+		private Callable<T> task;
+		private long estimate;
+		private long sequence;
+		private long started;	// When task started running
+	}
+
+	/**
+	 * Queue of tasks with a limit on running tasks.
+	 */
+	private class Lane<T> {
+		private String name;
+		private int limit;
+		private int running = 0;
+		private boolean held = false;
+		private long sequence = 0;
+		private int done = 0;
+		private Queue<Queued<T>> pending;
+		private Set<Queued<T>> active = new HashSet<>();
+		private Lane(String name, int limit, Queue<Queued<T>> pending) {
+			this.name = name;
+			this.limit = Math.max(1, limit);
+			this.pending = pending;
+		}
+		private void add(Callable<T> task, long estimate) {
+			synchronized (ExportScheduler.this) {
+				Queued<T> queued = new Queued<>();
+				queued.task = task;
+				queued.estimate = estimate;
+				queued.sequence = sequence++;
+				pending.add(queued);
+				outstanding++;
+			}
+			dispatch();
+		}
+		private boolean isIdle() {
+			synchronized (ExportScheduler.this) {
+				return (running == 0 && pending.isEmpty());
+			}
+		}
+		/**
+		 * Start pending tasks while under limit.
+		 */
+		private void dispatch() {
+			synchronized (ExportScheduler.this) {
+				while (!held && running < limit && !pending.isEmpty()) {
+					Queued<T> queued = pending.poll();
+					Callable<T> task = queued.task;
+					queued.started = System.currentTimeMillis();
+					active.add(queued);
+					running++;
+					completionService.submit(() -> {
+						try {
+							return complete(task.call());
+						} finally {
+							synchronized (ExportScheduler.this) {
+								running--;
+								done++;
+								active.remove(queued);
+							}
+							dispatch();
+						}
+					});
+				}
+			}
+		}
+		@Override
+		public String toString() {
+			return name + " running: " + running + "/" + limit + " pending: " + pending.size();
+		}
+	}
+
+	private ExecutorService executor;
+	private CompletionService<ExportResult> completionService;
+	private ExportEstimator estimator;
+	private boolean longestFirst;
+	private Lane<List<Callable<ExportResult>>> fieldLane;
+	private Lane<ExportResult> contextLane;
+	// Tasks queued or running
+	private int outstanding = 0;
+	private long estimatedFinish = -1;
+	private long etaIntervalMS;
+	// Receives result of each task as it completes
+	private Consumer<ExportResult> listener;
+
+	public ExportScheduler(Config conf, ExportEstimator estimator) {
+		this.executor = createExecutor();
+		this.completionService = new ExecutorCompletionService<>(executor);
+		this.estimator = estimator;
+		this.longestFirst = ORDER_LONGEST.equalsIgnoreCase(conf.getExportOrder());
+		this.etaIntervalMS = conf.getEtaIntervalMS();
+		this.fieldLane = new Lane<>("Fields", conf.getConcurrentExportCount(), new ArrayDeque<>());
+		Queue<Queued<ExportResult>> contextQueue;
+		if (longestFirst) {
+			contextQueue = new PriorityQueue<>(
+					Comparator.comparingLong((Queued<ExportResult> q) -> q.estimate).reversed()
+					.thenComparingLong(q -> q.sequence));
+		} else {
+			contextQueue = new ArrayDeque<>();
+		}
+		this.contextLane = new Lane<>("Contexts", conf.getConcurrentContextCount(), contextQueue);
+	}
+
+	/**
+	 * Virtual thread per task executor if available (Java 21+), otherwise cached platform threads.
+	 */
+	private static ExecutorService createExecutor() {
+		try {
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			ExecutorService service = (ExecutorService) m.invoke(null);
+			Log.info(LOGGER, "Export scheduler using virtual threads");
+			return service;
+		} catch (Exception ex) {
+			Log.info(LOGGER, "Virtual threads not available, export scheduler using platform threads");
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	private long estimate(Callable<ExportResult> task) {
+		if (task instanceof ContextTask) {
+			ContextTask ct = (ContextTask) task;
+			return estimator.estimate(ct.getCustomField(), ct.getContextId());
+		}
+		// Result already known
+		return 0;
+	}
+
+	// Convert result of field or context task to ExportResult for the completion queue
+	@SuppressWarnings("unchecked")
+	private ExportResult complete(Object result) {
+		if (result instanceof ExportResult) {
+			return (ExportResult) result;
+		}
+		// Field discovery, queue its contexts
+		for (Callable<ExportResult> task : (List<Callable<ExportResult>>) result) {
+			contextLane.add(task, estimate(task));
+		}
+		return new ExportResult();
+	}
+
+	/**
+	 * Queue discovery of a custom field. Its contexts are queued when discovery completes.
+	 */
+	public void submit(ExportThread field) {
+		if (longestFirst) {
+			synchronized (this) {
+				contextLane.held = true;
+			}
+		}
+		fieldLane.add(field, 0);
+	}
+
+	/**
+	 * Queue export of a context directly.
+	 */
+	public void submitContext(Callable<ExportResult> context) {
+		contextLane.add(context, estimate(context));
+	}
+
+	public void setListener(Consumer<ExportResult> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Change no. of contexts allowed to run at once.
+	 * When lowered, running contexts are not interrupted, new ones wait until under the limit.
+	 */
+	public void setContextLimit(int limit) {
+		synchronized (this) {
+			contextLane.limit = Math.max(1, limit);
+		}
+		contextLane.dispatch();
+	}
+
+	public synchronized int getContextLimit() {
+		return contextLane.limit;
+	}
+
+	public synchronized int getRunningContexts() {
+		return contextLane.running;
+	}
+
+	/**
+	 * Start held contexts, longest first, and log estimated finish time.
+	 */
+	private synchronized void release() {
+		List<Queued<ExportResult>> list = new ArrayList<>(contextLane.pending);
+		list.sort(Comparator.comparingLong((Queued<ExportResult> q) -> q.estimate).reversed()
+				.thenComparingLong(q -> q.sequence));
+		List<Long> durations = new ArrayList<>();
+		long total = 0;
+		for (Queued<ExportResult> q : list) {
+			durations.add(q.estimate);
+			total += q.estimate;
+		}
+		long makespan = ExportEstimator.simulate(durations, contextLane.limit);
+		estimatedFinish = System.currentTimeMillis() + makespan;
+		Log.info(LOGGER, "All fields discovered, starting " + list.size() + " context(s) longest first. " +
+				"Estimated work: " + total + " ms, " +
+				"estimated finish: " + SDF.format(new Date(estimatedFinish)));
+		contextLane.held = false;
+		contextLane.dispatch();
+	}
+
+	/**
+	 * Log progress and ETA.
+	 * Running contexts are assumed to need what is left of their estimate, queued contexts their full estimate.
+	 */
+	private synchronized void logProgress() {
+		long now = System.currentTimeMillis();
+		List<Long> durations = new ArrayList<>();
+		int unknown = 0;
+		for (Queued<ExportResult> q : contextLane.active) {
+			if (q.estimate <= 0) {
+				unknown++;
+			}
+			durations.add(Math.max(0, q.estimate - (now - q.started)));
+		}
+		List<Queued<ExportResult>> list = new ArrayList<>(contextLane.pending);
+		if (longestFirst) {
+			list.sort(Comparator.comparingLong((Queued<ExportResult> q) -> q.estimate).reversed()
+					.thenComparingLong(q -> q.sequence));
+		}
+		for (Queued<ExportResult> q : list) {
+			if (q.estimate <= 0) {
+				unknown++;
+			}
+			durations.add(q.estimate);
+		}
+		long remaining = ExportEstimator.simulate(durations, contextLane.limit);
+		Log.info(LOGGER, "Progress: " + contextLane.done + " context(s) done, " + 
+				contextLane.active.size() + " running, " + 
+				contextLane.pending.size() + " queued" + 
+				(fieldLane.isIdle()? "" : ", fields still being discovered") + ". " + 
+				"Estimated remaining: " + (remaining / 1000) + " s, " + 
+				"ETA: " + SDF.format(new Date(now + remaining)) + 
+				((unknown > 0)? ", " + unknown + " context(s) without estimate" : ""));
+	}
+
+	/**
+	 * Wait for all queued tasks, including contexts queued while waiting.
+	 */
+	public ExportResult awaitAll() throws InterruptedException {
+		ExportResult result = new ExportResult();
+		long nextProgress = System.currentTimeMillis() + etaIntervalMS;
+		while (true) {
+			synchronized (this) {
+				if (contextLane.held && fieldLane.isIdle()) {
+					release();
+				}
+				if (outstanding == 0) {
+					break;
+				}
+			}
+			Future<ExportResult> future;
+			if (etaIntervalMS > 0) {
+				future = completionService.poll(Math.max(0, nextProgress - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				if (System.currentTimeMillis() >= nextProgress) {
+					logProgress();
+					nextProgress = System.currentTimeMillis() + etaIntervalMS;
+				}
+				if (future == null) {
+					continue;
+				}
+			} else {
+				future = completionService.take();
+			}
+			try {
+				ExportResult completed = future.get();
+				result.addAll(completed);
+				if (listener != null) {
+					listener.accept(completed);
+				}
+			} catch (ExecutionException eex) {
+				Log.error(LOGGER, "Thread execution failed", eex.getCause());
+			}
+			synchronized (this) {
+				outstanding--;
+				Log.debug(LOGGER, "Export scheduler " + fieldLane + ", " + contextLane);
+			}
+		}
+		if (estimatedFinish != -1) {
+			Log.info(LOGGER, "Estimated finish: " + SDF.format(new Date(estimatedFinish)) + ", " +
+					"actual finish: " + SDF.format(new Date()));
+		}
+		return result;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,300 @@
+package com.igsl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Cancellation scope of export work: run, custom field, context.
+ *
+ * Each scope has a deadline, no later than its parent's.
+ * Blocking calls take their timeout from {@link #getRemainingMillis()}.
+ * When a scope is cancelled, explicitly or by its deadline, all its descendants are cancelled too:
+ * resources registered with {@link #register(AutoCloseable)} are closed (e.g. WebClients in use)
+ * and threads that called {@link #bind()} are interrupted, so blocking calls return promptly.
+ *
+ * Usage:
+ * 	try (ExportScope scope = parent.child(name, timeout)) {
+ * 		scope.bind();
+ * 		...
+ * 	}
+ */
+public class ExportScope implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	// Enforces deadlines of all scopes
+	private static final ScheduledThreadPoolExecutor TIMER;
+	static {
+		TIMER = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread t = new Thread(r, "ExportScope-Deadline");
+			t.setDaemon(true);
+			return t;
+		});
+		TIMER.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Thrown by {@link #check()} when scope is cancelled.
+	 */
+	public static class CancelledException extends Exception {
+		private static final long serialVersionUID = 1L;
+		public CancelledException(String message) {
+			super(message);
+		}
+	}
+
+	private static final String DEADLINE_EXCEEDED = "Deadline exceeded";
+
+	private String name;
+	private ExportScope parent;
+	private long deadline;	// System.nanoTime(), Long.MAX_VALUE if none
+	private ScheduledFuture<?> deadlineTask;
+	private List<ExportScope> children = new ArrayList<>();
+	private Set<AutoCloseable> resources = new LinkedHashSet<>();
+	private Set<Thread> threads = new LinkedHashSet<>();
+	private volatile String cancelReason;
+	private boolean closed = false;
+
+	private ExportScope(String name, ExportScope parent, long timeoutMS) {
+		this.name = name;
+		this.parent = parent;
+		long deadline = (parent == null)? Long.MAX_VALUE : parent.deadline;
+		if (timeoutMS > 0) {
+			deadline = Math.min(deadline, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMS));
+		}
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Top level scope.
+	 * @param timeoutMS Deadline from now, 0 for none.
+	 */
+	public static ExportScope root(String name, long timeoutMS) {
+		ExportScope scope = new ExportScope(name, null, timeoutMS);
+		scope.scheduleDeadline();
+		return scope;
+	}
+
+	/**
+	 * Create child scope. Child is already cancelled if this scope is.
+	 * @param timeoutMS Deadline from now, 0 to use this scope's deadline.
+	 */
+	public ExportScope child(String name, long timeoutMS) {
+		ExportScope scope = new ExportScope(name, this, timeoutMS);
+		String reason;
+		synchronized (this) {
+			reason = cancelReason;
+			if (reason == null) {
+				children.add(scope);
+			}
+		}
+		if (reason != null) {
+			scope.cancel(reason, false);
+		} else if (scope.deadline != deadline) {
+			scope.scheduleDeadline();
+		}
+		return scope;
+	}
+
+	private void scheduleDeadline() {
+		if (deadline != Long.MAX_VALUE) {
+			deadlineTask = TIMER.schedule(
+					() -> cancel(DEADLINE_EXCEEDED),
+					Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Milliseconds until deadline, Long.MAX_VALUE if there is none, 0 if cancelled.
+	 */
+	public long getRemainingMillis() {
+		if (cancelReason != null) {
+			return 0;
+		}
+		if (deadline == Long.MAX_VALUE) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+	}
+
+	/**
+	 * Limit timeout to time remaining.
+	 */
+	public long limit(long timeoutMS) {
+		return Math.min(timeoutMS, getRemainingMillis());
+	}
+
+	public boolean hasDeadline() {
+		return deadline != Long.MAX_VALUE;
+	}
+
+	/**
+	 * Cancelled, or deadline has passed even if timer has not fired yet.
+	 */
+	public boolean isCancelled() {
+		return getCancelReason() != null;
+	}
+
+	/**
+	 * Reason of cancellation, null if not cancelled.
+	 */
+	public String getCancelReason() {
+		String reason = cancelReason;
+		if (reason == null && deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0) {
+			reason = DEADLINE_EXCEEDED;
+		}
+		return reason;
+	}
+
+	/**
+	 * @throws CancelledException If scope is cancelled.
+	 */
+	public void check() throws CancelledException {
+		String reason = getCancelReason();
+		if (reason != null) {
+			throw new CancelledException(name + ": " + reason);
+		}
+	}
+
+	/**
+	 * Interrupt current thread on cancel, until scope is closed.
+	 */
+	public void bind() {
+		synchronized (this) {
+			threads.add(Thread.currentThread());
+			if (cancelReason == null) {
+				return;
+			}
+		}
+		Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Stop interrupting current thread on cancel. Interrupt caused by this scope is cleared.
+	 */
+	public void unbind() {
+		boolean bound;
+		synchronized (this) {
+			bound = threads.remove(Thread.currentThread());
+		}
+		if (bound && cancelReason != null) {
+			// Thread is reused by executor
+			Thread.interrupted();
+		}
+	}
+
+	/**
+	 * Close resource on cancel. Closed immediately if already cancelled.
+	 */
+	public void register(AutoCloseable resource) {
+		synchronized (this) {
+			if (cancelReason == null) {
+				resources.add(resource);
+				return;
+			}
+		}
+		closeQuietly(resource);
+	}
+
+	/**
+	 * Resource no longer in use, do not close it on cancel.
+	 */
+	public synchronized void unregister(AutoCloseable resource) {
+		resources.remove(resource);
+	}
+
+	/**
+	 * Cancel this scope and all descendants.
+	 */
+	public void cancel(String reason) {
+		cancel(reason, true);
+	}
+
+	private void cancel(String reason, boolean log) {
+		List<ExportScope> childList;
+		List<AutoCloseable> resourceList;
+		synchronized (this) {
+			if (cancelReason != null) {
+				return;
+			}
+			cancelReason = reason;
+			childList = new ArrayList<>(children);
+			resourceList = new ArrayList<>(resources);
+			resources.clear();
+			for (Thread t : threads) {
+				t.interrupt();
+			}
+		}
+		if (deadlineTask != null) {
+			deadlineTask.cancel(false);
+		}
+		if (log) {
+			Log.info(LOGGER, "Scope " + name + " cancelled: " + reason);
+		}
+		for (AutoCloseable resource : resourceList) {
+			closeQuietly(resource);
+		}
+		for (ExportScope child : childList) {
+			child.cancel(reason, false);
+		}
+	}
+
+	private static void closeQuietly(AutoCloseable resource) {
+		try {
+			resource.close();
+		} catch (Exception ex) {
+			Log.warn(LOGGER, "Error closing " + resource + ": " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * End of scope. Children still open are cancelled.
+	 * Interrupt caused by this scope is cleared from current thread.
+	 */
+	@Override
+	public void close() {
+		List<ExportScope> childList;
+		boolean bound;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			childList = new ArrayList<>(children);
+			bound = threads.remove(Thread.currentThread());
+			threads.clear();
+		}
+		if (deadlineTask != null) {
+			deadlineTask.cancel(false);
+		}
+		for (ExportScope child : childList) {
+			child.cancel("Parent scope " + name + " closed", false);
+		}
+		if (parent != null) {
+			synchronized (parent) {
+				parent.children.remove(this);
+			}
+		}
+		if (bound && cancelReason != null) {
+			// Thread is reused by executor
+			Thread.interrupted();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,257 @@
+package com.igsl;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Simulate triggerExport under different settings using durations of past exports, without contacting Jira.
+ *
+ * Each context takes its standalone duration from export history, removing the slowdown of the contexts running with it.
+ * Contexts without such history use the estimate of {@link ExportEstimator} (journal, then issue count).
+ * For each no. of nodes in simulationNodes, context limit in simulationCaps and export order,
+ * run time and peak no. of contexts running are simulated and written to ExportSimulation.[Timestamp].csv.
+ *
+ * Contexts slow down when more run on the same node, by simulationContention,
+ * or by contention measured from history if it is negative (see {@link #calibrate(ExportHistory)}).
+ *
+ * Recommended settings are the fewest nodes and lowest limit within simulationTolerance of the fastest run.
+ */
+public class ExportSimulator {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final SimpleDateFormat SDF = new SimpleDateFormat("yyyyMMdd-HHmmss");
+
+	private static class Scenario {
+		private int nodes;
+		private int cap;
+		private String order;
+		private ExportEstimator.Simulation simulation;
+	}
+
+	/**
+	 * Estimate contention k from history.
+	 * For each context, durations at higher parallelism are compared to those at its lowest parallelism,
+	 * and k is fitted to duration ratio = 1 + k * (parallel difference) by least squares.
+	 * @return k, or -1 if history has no context exported at different parallelism.
+	 */
+	public static double calibrate(ExportHistory history) {
+		double num = 0;
+		double den = 0;
+		for (List<ExportHistory.Sample> samples : history.getEntries().values()) {
+			int min = Integer.MAX_VALUE;
+			for (ExportHistory.Sample sample : samples) {
+				if (sample.getDuration() > 0 && sample.getParallel() > 0) {
+					min = Math.min(min, sample.getParallel());
+				}
+			}
+			if (min == Integer.MAX_VALUE) {
+				continue;
+			}
+			long total = 0;
+			int count = 0;
+			for (ExportHistory.Sample sample : samples) {
+				if (sample.getDuration() > 0 && sample.getParallel() == min) {
+					total += sample.getDuration();
+					count++;
+				}
+			}
+			double base = (double) total / count;
+			for (ExportHistory.Sample sample : samples) {
+				if (sample.getDuration() > 0 && sample.getParallel() > min) {
+					int diff = sample.getParallel() - min;
+					num += (sample.getDuration() / base - 1) * diff;
+					den += (double) diff * diff;
+				}
+			}
+		}
+		if (den == 0) {
+			return -1;
+		}
+		return Math.max(0, num / den);
+	}
+
+	public static void run(Config conf, Path journalFile) {
+		if (conf.getSimulationNodes() == null || conf.getSimulationNodes().isEmpty() || 
+				conf.getSimulationNodes().contains(null)) {
+			Log.error(LOGGER, "simulationNodes must list at least one no. of nodes to simulate");
+			return;
+		}
+		if (conf.getSimulationCaps() == null || conf.getSimulationCaps().isEmpty() || 
+				conf.getSimulationCaps().contains(null)) {
+			Log.error(LOGGER, "simulationCaps must list at least one concurrency cap to simulate");
+			return;
+		}
+		ExportHistory history = ExportHistory.create(conf);
+		ExportJournal journal = ExportJournal.disabled();
+		if (journalFile != null) {
+			try {
+				journal = ExportJournal.open(journalFile);
+			} catch (IOException ioex) {
+				Log.error(LOGGER, "Unable to open export journal", ioex);
+				return;
+			}
+		}
+		ExportEstimator estimator = ExportEstimator.create(conf, journal, history);
+		double contention = conf.getSimulationContention();
+		if (contention < 0) {
+			contention = (history == null)? -1 : calibrate(history);
+			if (contention < 0) {
+				Log.info(LOGGER, "Contention cannot be measured from history, assuming none");
+				contention = 0;
+			} else {
+				Log.info(LOGGER, "Contention measured from history: " + String.format("%.4f", contention));
+			}
+		}
+		// Contexts in order of field and context ID
+		Set<String> keys = new TreeSet<>(Comparator
+				.comparingLong((String key) -> parseId(key, 0))
+				.thenComparingLong(key -> parseId(key, 1))
+				.thenComparing(key -> key));
+		if (history != null) {
+			keys.addAll(history.getEntries().keySet());
+		}
+		keys.addAll(journal.getEntries().keySet());
+		journal.close();
+		List<Long> fifo = new ArrayList<>();
+		Set<String> fields = new HashSet<>();
+		int skipped = 0;
+		Map<String, List<ExportHistory.Sample>> entries = 
+				(history == null)? Collections.emptyMap() : history.getEntries();
+		for (String key : keys) {
+			long estimate = getStandalone(entries.get(key), contention);
+			if (estimate <= 0) {
+				estimate = estimator.estimate(key);
+			}
+			if (estimate > 0) {
+				fifo.add(estimate);
+				fields.add(key.split("-")[0]);
+			} else {
+				skipped++;
+			}
+		}
+		if (fifo.size() == 0) {
+			Log.error(LOGGER, "No context with known duration, run triggerExport first to record export history");
+			return;
+		}
+		List<Long> longest = new ArrayList<>(fifo);
+		longest.sort(Comparator.reverseOrder());
+		long total = 0;
+		for (long estimate : fifo) {
+			total += estimate;
+		}
+		Log.info(LOGGER, "Simulating " + fifo.size() + " context(s) of " + fields.size() + " custom field(s), " +
+				"total duration: " + format(total) +
+				((skipped > 0)? ", " + skipped + " context(s) without duration skipped" : ""));
+		List<Scenario> scenarios = new ArrayList<>();
+		for (int nodes : conf.getSimulationNodes()) {
+			for (int cap : conf.getSimulationCaps()) {
+				for (String order : Arrays.asList(ExportScheduler.ORDER_LONGEST, ExportScheduler.ORDER_FIFO)) {
+					Scenario scenario = new Scenario();
+					scenario.nodes = nodes;
+					scenario.cap = cap;
+					scenario.order = order;
+					scenario.simulation = ExportEstimator.simulate(
+							ExportScheduler.ORDER_LONGEST.equals(order)? longest : fifo, cap, nodes, contention);
+					scenarios.add(scenario);
+				}
+			}
+		}
+		long best = Long.MAX_VALUE;
+		for (Scenario scenario : scenarios) {
+			best = Math.min(best, scenario.simulation.getMakespan());
+		}
+		// Fewest nodes then lowest cap within tolerance, whatever order they are configured in
+		Comparator<Scenario> cheapest = Comparator
+				.comparingInt((Scenario scenario) -> scenario.nodes)
+				.thenComparingInt(scenario -> scenario.cap)
+				.thenComparingLong(scenario -> scenario.simulation.getMakespan());
+		Scenario recommended = null;
+		for (Scenario scenario : scenarios) {
+			if (scenario.simulation.getMakespan() <= best * (1 + conf.getSimulationTolerance()) && 
+				(recommended == null || cheapest.compare(scenario, recommended) < 0)) {
+				recommended = scenario;
+			}
+		}
+		String fileName;
+		synchronized (SDF) {
+			fileName = "ExportSimulation." + SDF.format(new Date()) + ".csv";
+		}
+		CSVFormat format = CSV.getCSVWriteFormat(Arrays.asList(
+				"Nodes", "Concurrent Context Count", "Export Order", "Run Time (ms)", "Peak Parallel"));
+		try (	FileWriter fw = CSV.getCSVFileWriter(fileName);
+				CSVPrinter printer = new CSVPrinter(fw, format)) {
+			for (Scenario scenario : scenarios) {
+				printer.printRecord(
+						scenario.nodes,
+						scenario.cap,
+						scenario.order,
+						scenario.simulation.getMakespan(),
+						scenario.simulation.getPeak());
+				Log.info(LOGGER, "Nodes: " + scenario.nodes +
+						" concurrentContextCount: " + scenario.cap +
+						" exportOrder: " + scenario.order +
+						" run time: " + format(scenario.simulation.getMakespan()) +
+						" peak parallel: " + scenario.simulation.getPeak());
+			}
+			Log.info(LOGGER, "Simulation written to: " + fileName);
+		} catch (Exception ex) {
+			Log.error(LOGGER, "Error writing simulation", ex);
+		}
+		Log.info(LOGGER, "Recommended: " +
+				recommended.nodes + " node(s), " +
+				"\"concurrentContextCount\": " + recommended.cap + ", " +
+				"\"exportOrder\": \"" + recommended.order + "\", " +
+				"\"concurrentExportCount\": " + Math.min(recommended.cap, fields.size()) +
+				". Estimated run time: " + format(recommended.simulation.getMakespan()) +
+				", fastest simulated: " + format(best));
+	}
+
+	/**
+	 * Average duration of samples as if each ran alone on its node, -1 if none has duration and parallelism.
+	 */
+	private static long getStandalone(List<ExportHistory.Sample> samples, double contention) {
+		if (samples == null) {
+			return -1;
+		}
+		double total = 0;
+		int count = 0;
+		for (ExportHistory.Sample sample : samples) {
+			if (sample.getDuration() >= 0 && sample.getParallel() > 0) {
+				total += sample.getDuration() / (1 + contention * (sample.getParallel() - 1));
+				count++;
+			}
+		}
+		return (count == 0)? -1 : Math.round(total / count);
+	}
+
+	private static long parseId(String key, int index) {
+		String[] parts = key.split("-");
+		try {
+			return Long.parseLong(parts[index]);
+		} catch (Exception ex) {
+			return Long.MAX_VALUE;
+		}
+	}
+
+	private static String format(long ms) {
+		long seconds = ms / 1000;
+		return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+	}
+}
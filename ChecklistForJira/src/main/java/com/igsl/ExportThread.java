@@ -5,14 +5,11 @@ import java.net.URL;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 import org.apache.http.NameValuePair;
 import org.apache.http.client.utils.URIBuilder;
@@ -27,79 +24,77 @@ import org.htmlunit.html.HtmlPage;
 import com.igsl.mybatis.CustomField;
 
 /**
- * Thread to trigger Checklist for Jira export
- * Then monitor the generated files to ensure the export is complete
+ * Thread to find contexts of a custom field
+ * Then create a thread for each context to trigger Checklist for Jira export and ensure the export is complete
  */
-public class ExportThread implements Callable<ExportResult> {
+public class ExportThread implements Callable<List<Callable<ExportResult>>> {
 
 	private static final Logger LOGGER = LogManager.getLogger();
+	// Export page of a context (field configuration)
+	public static final String EXPORT_PAGE_PATH = "/secure/admin/ExportChecklist!default.jspa?fieldConfigId=";
 	public static final SimpleDateFormat SDF = new SimpleDateFormat("yyyyMMdd-HHmmss");
 
 	private Config conf;
-	private Path exportDirectory;
 	private CustomField customField;
 	private long maxWait;
 	private List<String> completed = new ArrayList<>();
 	private List<String> failed = new ArrayList<>();
 	private Map<String, List<String>> bypassMap;
+	private Map<String, List<String>> contextMap;	// Contexts from database, null to read configuration page
+	private ExportRun run;
+	private SourceNodePool nodes;
+	private ExportJournal journal;
+	private ExportHistory history;	// Null if disabled
+	private ExportScope runScope;
+	private ExportScope fieldScope;
 	
-	public ExportThread(Config conf, Path exportDirectory, CustomField customField, long maxWait, Map<String, List<String>> bypassMap) {
+	public ExportThread(Config conf, ExportRun run, ExportScope runScope, CustomField customField, long maxWait, Map<String, List<String>> bypassMap, Map<String, List<String>> contextMap) {
 		this.conf = conf;
-		this.exportDirectory = exportDirectory;
+		this.run = run;
+		this.nodes = run.getNodes();
+		this.journal = run.getJournal();
+		this.history = run.getHistory();
+		this.runScope = runScope;
 		this.customField = customField;
 		this.maxWait = maxWait;
 		this.bypassMap = bypassMap;
+		this.contextMap = contextMap;
 	}
 		
+	/**
+	 * Find contexts of custom field and trigger export for each.
+	 * Contexts run in a scope of this field, cancelling it cancels all of them.
+	 * The field scope ends with the run scope.
+	 * @return Tasks for each context, to be run by {@link ExportScheduler}.
+	 */
 	@Override
-	public ExportResult call() {
+	public List<Callable<ExportResult>> call() {
 		Log.info(LOGGER, "Export started for " + customField.getFieldName() + " (" + customField.getFieldId() + ")");
-		ExportResult result = new ExportResult();
+		List<Callable<ExportResult>> list = new ArrayList<>();
+		fieldScope = runScope.child("customfield_" + customField.getFieldId(), 0);
+		// Discovery is bound to field scope, contexts bind their own
+		fieldScope.bind();
 		try {
-			List<Callable<ExportResult>> list = triggerExport();
-			if (list.size() == 0) {
-				// No items found
-				return result;
-			}			
-			// Start monitoring threads
-			ExecutorService service = Executors.newFixedThreadPool(list.size());
-			List<Future<ExportResult>> futureList = new ArrayList<>();
-			list.forEach(thread -> {
-				futureList.add(service.submit(thread));
-			});
-			while (!futureList.isEmpty()) {
-				try {
-					Thread.sleep(1000);
-				} catch (InterruptedException iex) {
-					Log.error(LOGGER, "Sleep interrupted", iex);
-				}
-				List<Future<ExportResult>> toRemove = new ArrayList<>();
-				for (Future<ExportResult> future : futureList) {
-					try {
-						ExportResult er = future.get(1000, TimeUnit.MILLISECONDS);
-						result.addAll(er);
-						toRemove.add(future);
-					} catch (TimeoutException tex) {
-						// Ignore and wait
-					} catch (Exception ex) {
-						toRemove.add(future);
-					}
-				}
-				futureList.removeAll(toRemove);
-			}			
-			service.shutdownNow();			
+			list = triggerExport();
 		} catch (Exception ex) {
 			Log.error(LOGGER, "Error triggering export for " + customField.getFieldName() + " (" + customField.getFieldId() + ")", ex);
+		} finally {
+			fieldScope.unbind();
 		}
-		Log.info(LOGGER, "Export ended for " + customField.getFieldName() + " (" + customField.getFieldId() + ")");
-		return result;
+		Log.info(LOGGER, list.size() + " context(s) found for " + customField.getFieldName() + " (" + customField.getFieldId() + ")");
+		return list;
 	}
 
 	public static URL createURI(Config conf, String path) throws Exception {
 		return new URI(conf.getSourceScheme() + "://" + conf.getSourceHost() + path).toURL();
 	}
 	
-	public static void loginJira(Config conf, WebClient client) throws Exception {
+	/**
+	 * Login and WebSudo.
+	 * @return atl_token, or null if login form is not found.
+	 */
+	public static String loginJira(Config conf, WebClient client) throws Exception {
+		String atlToken = null;
 		// Login
 		HtmlPage loginPage = client.getPage(createURI(conf, "/login.jsp").toString());
 		for (HtmlForm form : loginPage.getForms()) {
@@ -114,7 +109,6 @@ public class ExportThread implements Callable<ExportResult> {
 					if (landingPage.getUrl().toString().contains("/secure/")) {
 						Log.info(LOGGER, "Login successful");
 						HtmlElement logoutLink = (HtmlElement) landingPage.getFirstByXPath("//a[@id='log_out']");
-						String atlToken = null;
 						URIBuilder builder = new URIBuilder(logoutLink.getAttribute("href"));
 						for (NameValuePair query : builder.getQueryParams()) {
 							if (query.getName().equals("atl_token")) {
@@ -162,6 +156,49 @@ public class ExportThread implements Callable<ExportResult> {
 				break;
 			}	
 		}	// Form check
+		return atlToken;
+	}
+	
+	/**
+	 * Max. wait of context, from its history if adaptiveTimeout is enabled.
+	 */
+	private long getMaxWait(String contextId) {
+		if (history == null) {
+			return maxWait;
+		}
+		long timeout = history.getTimeout(conf, customField.getFieldId(), contextId);
+		if (timeout != maxWait) {
+			Log.info(LOGGER, "Max wait for customfield_" + customField.getFieldId() + "-" + contextId + 
+					" from history: " + timeout);
+		}
+		return timeout;
+	}
+
+	/**
+	 * Use journal of previous run to decide how to handle a context.
+	 * @return Task for context, or null if context has no journal entry or previously failed.
+	 */
+	private Callable<ExportResult> resume(String contextId) {
+		ExportJournal.Entry entry = journal.get(customField, contextId);
+		if (entry == null) {
+			return null;
+		}
+		switch (entry.getState()) {
+		case VERIFIED: 
+			Log.info(LOGGER, "Already verified: customfield_" + customField.getFieldId() + "-" + contextId);
+			ExportResult verified = journal.getResult(customField, contextId);
+			return () -> verified;
+		case TRIGGERED: 
+		case IN_PROGRESS: 
+			// Export is already running or done in Jira, triggering again would fail as GZ files exist
+			Log.info(LOGGER, "Resume monitoring: customfield_" + customField.getFieldId() + "-" + contextId);
+			return new FileMonitorThread(
+					conf, run, fieldScope, Collections.singletonList(nodes.getExportDirectory(entry.getDetail())), 
+					customField, contextId, getMaxWait(contextId));
+		default: 
+			// Try again
+			return null;
+		}
 	}
 	
 	private List<Callable<ExportResult>> triggerExport() throws Exception {
@@ -171,43 +208,39 @@ public class ExportThread implements Callable<ExportResult> {
 			if (bypassMap.containsKey(customField.getFieldId())) {
 				List<String> list = bypassMap.get(customField.getFieldId());
 				for (String id : list) {
-					result.add(new FileMonitorThread(exportDirectory, customField, id, maxWait));
+					Callable<ExportResult> task = resume(id);
+					if (task == null) {
+						// Exported by hand on any node, watch all nodes until its files are found
+						Path dir = nodes.findExportDirectory(customField.getFieldId(), id);
+						List<Path> dirs = (dir != null)? Collections.singletonList(dir) : nodes.getExportDirectories();
+						task = new FileMonitorThread(conf, run, fieldScope, dirs, customField, id, getMaxWait(id));
+					}
+					result.add(task);
 				}
 			}
 		} else {
 			// Trigger via web
-			try (final WebClient webClient = new WebClient()) {
-				webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
-				webClient.getOptions().setThrowExceptionOnScriptError(false);
-				// Login
-				loginJira(conf, webClient);
-				// Go to custom field page
-				HtmlPage customFieldPage = webClient.getPage(createURI(conf, 
-						"/secure/admin/ConfigureCustomField!default.jspa?customFieldId=" + customField.getFieldId()));
-				// Find all the contexts
-				// Find a.aui-button with content "Export"
-				List<Object> buttonList = customFieldPage.getByXPath("//a[@class='aui-button'][text()[contains(., 'Export')]]");
-				if (buttonList.size() != 0) {
-					for (Object linkElement : buttonList) {
-						HtmlElement link = (HtmlElement) linkElement;
-						// Grab fieldConfigId off the link
-						String href = link.getAttribute("href");
-						URIBuilder builder = new URIBuilder(href);
-						String fieldConfigId = null;
-						for (NameValuePair query : builder.getQueryParams()) {
-							if ("fieldConfigId".equals(query.getName())) {
-								fieldConfigId = query.getValue();
-								break;
-							}
-						}
-						// Click and get export page
-						HtmlPage exportPage = link.click();
-						result.add(new ExportContextThread(conf, customField, fieldConfigId, exportPage.getUrl(), maxWait));
-					}	// For all contexts
-				} else {
-					Log.info(LOGGER, "No exportable context found");
+			Map<String, URL> exportPages;
+			if (contextMap != null) {
+				exportPages = new LinkedHashMap<>();
+				for (String id : contextMap.getOrDefault(customField.getFieldId(), Collections.emptyList())) {
+					exportPages.put(id, createURI(conf, EXPORT_PAGE_PATH + id));
 				}
-			} // Try
+			} else {
+				exportPages = nodes.getDiscoveryEngine().getExportPages(customField, fieldScope);
+			}
+			if (exportPages.size() != 0) {
+				for (Map.Entry<String, URL> entry : exportPages.entrySet()) {
+					Callable<ExportResult> task = resume(entry.getKey());
+					if (task == null) {
+						task = new ExportContextThread(
+								conf, run, fieldScope, customField, entry.getKey(), entry.getValue(), getMaxWait(entry.getKey()));
+					}
+					result.add(task);
+				}	// For all contexts
+			} else {
+				Log.info(LOGGER, "No exportable context found");
+			}
 		}
 		return result;
 	}
@@ -1,66 +1,87 @@
 package com.igsl;
 
-import java.io.IOException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
 import com.igsl.json.ChecklistForJiraData;
 import com.igsl.mybatis.CustomField;
 
-public class FileMonitorThread implements Callable<ExportResult> {
+public class FileMonitorThread implements ContextTask {
 
-	private static ObjectMapper OM = new ObjectMapper()
-			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 	private static final Logger LOGGER = LogManager.getLogger();
-	private static final long WAIT = 1000;
 
-	private Path exportDirectory;
+	private Config conf;
+	private ExportJournal journal;
+	private JobCompletionDetector detector;	// Null to rely on GZ files only
+	private ExportHistory history;	// Null if disabled
+	private ExportScope fieldScope;
+	private List<Path> exportDirectories;	// Several if node is not known
 	private CustomField customField;
 	private String contextId;
 	private long maxWait;
 
-	public FileMonitorThread(Path exportDirectory, CustomField customField, String contextId, long maxWait) {
-		this.exportDirectory = exportDirectory;
+	public FileMonitorThread(Config conf, ExportRun run, ExportScope fieldScope, List<Path> exportDirectories, CustomField customField, String contextId, long maxWait) {
+		this.conf = conf;
+		this.journal = run.getJournal();
+		this.detector = run.getDetector();
+		this.history = run.getHistory();
+		this.fieldScope = fieldScope;
+		this.exportDirectories = exportDirectories;
 		this.customField = customField;
 		this.contextId = contextId;
 		this.maxWait = maxWait;
 	}
 	
+	/**
+	 * Monitored directory containing file.
+	 */
+	private Path findExportDirectory(Path gzFile) {
+		Path parent = gzFile.toAbsolutePath().normalize().getParent();
+		for (Path dir : exportDirectories) {
+			if (dir.toAbsolutePath().normalize().equals(parent)) {
+				return dir;
+			}
+		}
+		return parent;
+	}
+
 	@Override
 	public ExportResult call() {
 		Instant startTime = Instant.now();
-		// TODO Monitor using job? It can disappear quickly
-		// Group: ExportChecklistJobRunner
-		// Job: ?-[Checklist Context ID]
-		
 		Log.info(LOGGER, "Verification started for " + getName());
-		Pattern gzFileNamePattern = Pattern.compile("customfield_" + customField.getFieldId() + "-" + contextId + "-([0-9])\\.gz");
+		// Job runs since export was triggered count.
+		// Resuming from journal: trigger time recorded, 0 (any run) if unknown.
+		// Bypass: export was just triggered by hand, runs from earlier attempts must not count.
+		long triggeredTime = System.currentTimeMillis();
+		ExportJournal.Entry journalEntry = journal.get(customField, contextId);
+		if (journalEntry != null && 
+				(journalEntry.getState() == ExportJournal.State.TRIGGERED || journalEntry.getState() == ExportJournal.State.IN_PROGRESS)) {
+			triggeredTime = journalEntry.getStartTime();
+		}
+		// Directory identifies the node if monitoring has to resume
+		// If there are several, it is recorded again when the first GZ file is found
+		Path exportDirectory = (exportDirectories.size() == 1)? exportDirectories.get(0) : null;
+		journal.record(customField, contextId, ExportJournal.State.IN_PROGRESS, 
+				(exportDirectory != null)? exportDirectory.toString() : "");
+		Pattern gzFileNamePattern = Pattern.compile("customfield_" + customField.getFieldId() + "-" + contextId + "-([0-9]+)\\.gz");
 		ExportResult result = new ExportResult();
-		Path extractDir = Paths.get(getName());
 		boolean completed = false;
 		int lastProcessedIndex = 0;
 		boolean manifestFound = false;
@@ -68,66 +89,83 @@ public class FileMonitorThread implements Callable<ExportResult> {
 		long valueCount = 0;
 		String errorMessage = null;
 		List<String> filesFound = new ArrayList<>();
-		try {
-			extractDir = Files.createDirectory(extractDir);
-			ObjectReader reader = OM.readerFor(ChecklistForJiraData.class);
+		// Throughput of verification
+		long bytesVerified = 0;
+		long nanosVerified = 0;
+		// Deadline of all waits for this context. Cancelled with field or run.
+		try (ExportScope scope = fieldScope.child(getName(), maxWait); 
+			ExportDirectoryWatcher.Subscription subscription = ExportDirectoryWatcher.register(
+					conf, exportDirectories, customField.getFieldId(), contextId)) {
+			scope.bind();
+			// Files delivered but not yet verified, sorted by chunk index
+			TreeMap<Integer, Path> pending = new TreeMap<>();
+			Set<Integer> processed = new HashSet<>();
+			PollPolicy pollPolicy = PollPolicy.create(conf);
 			long wait = 0;
+			long jobFinishedWait = -1;	// Wait when export job is found finished
+			if (detector != null) {
+				detector.register(contextId, triggeredTime);
+			}
 			while (true) {
-				if (wait > maxWait) {
-					Log.error(LOGGER, "Timeout waiting for GZ files");
-					errorMessage = "Timed out: " + wait;
+				if (scope.isCancelled()) {
+					Log.error(LOGGER, "Timeout waiting for GZ files of " + getName() + ": " + scope.getCancelReason());
+					errorMessage = "Timed out: " + wait + " (" + scope.getCancelReason() + ")";
 					break;
 				}
-				// Find GZ file
-				DirectoryStream.Filter<Path> pathFilter = new DirectoryStream.Filter<Path>() {
-					@Override
-					public boolean accept(Path entry) {
-						Matcher m = gzFileNamePattern.matcher(entry.getFileName().toString());
-						return m.matches();
+				// Collect GZ files dispatched by watcher
+				for (Path gzFile : subscription.drain()) {
+					Matcher m = gzFileNamePattern.matcher(gzFile.getFileName().toString());
+					if (!m.matches()) {
+						Log.debug(LOGGER, "Pattern not matched");
+						continue;
 					}
-				};
-
-				// Sort fileList
-				DirectoryStream<Path> fileStream = Files.newDirectoryStream(exportDirectory, pathFilter);
-				List<Path> fileList = StreamSupport.stream(fileStream.spliterator(), false)
-					.sorted(Comparator.comparing(Path::toString))
-					.collect(Collectors.toList());
-				for (Path gzFile : fileList) {
+					int index = Integer.parseInt(m.group(1));
+					if (!processed.contains(index)) {
+						pending.put(index, gzFile);
+					}
+				}
+				Iterator<Map.Entry<Integer, Path>> it = pending.entrySet().iterator();
+				while (it.hasNext()) {
+					Map.Entry<Integer, Path> entry = it.next();
+					int currentIndex = entry.getKey();
+					Path gzFile = entry.getValue();
 					Log.debug(LOGGER, "Processing file: " + gzFile.toString());
+					if (exportDirectory == null) {
+						exportDirectory = findExportDirectory(gzFile);
+						journal.record(customField, contextId, ExportJournal.State.IN_PROGRESS, exportDirectory.toString());
+					}
+					Log.debug(LOGGER, "Current index: " + currentIndex);
 					try {
-						Matcher m = gzFileNamePattern.matcher(gzFile.getFileName().toString());
-						if (!m.matches()) {
-							Log.debug(LOGGER, "Pattern not matched");
-							continue;
-						}
-						int currentIndex = Integer.parseInt(m.group(1));
-						Log.debug(LOGGER, "Current index: " + currentIndex);
-						if (currentIndex <= lastProcessedIndex) {
-							continue;
-						}
-						Path file = ChecklistForJira.gunzip(extractDir, gzFile);
-						ChecklistForJiraData data = reader.readValue(file.toFile());
+						GZVerifier.Result data = GZVerifier.verify(gzFile, conf.getGzBufferSize());
+						bytesVerified += data.getBytes();
+						nanosVerified += data.getElapsedNanos();
+						Log.debug(LOGGER, "Verified " + gzFile.getFileName() + ": " + 
+								data.getBytes() + " byte(s), " + 
+								GZVerifier.getBytesPerSecond(data.getBytes(), data.getElapsedNanos()) + " byte(s)/s");
 						filesFound.add(FilenameUtils.getName(gzFile.toString()));
 						switch(data.getType()) {
-						case "manifest": 
+						case ChecklistForJiraData.TYPE_MANIFEST: 
 							manifestFound = true;
 							issueCount = data.getIssueCount();
 							Log.debug(LOGGER, "Manifest issue count: " + issueCount);
-							lastProcessedIndex = currentIndex;
 							break;
-						case "values": 
-							valueCount += data.getValues().size();
-							Log.debug(LOGGER, "Values size: " + data.getValues().size());
-							lastProcessedIndex = currentIndex;
+						case ChecklistForJiraData.TYPE_VALUES: 
+							valueCount += data.getValueCount();
+							Log.debug(LOGGER, "Values size: " + data.getValueCount());
 							break;
 						default: 
-							lastProcessedIndex = currentIndex;
 							break;
 						}
 						// If manifest type, get issue count
 						// If issue count not 0, look for value type
+						lastProcessedIndex = currentIndex;
+						processed.add(currentIndex);
+						it.remove();
+						pollPolicy.progress();
 					} catch (Exception ex) {
+						// Likely still being written. Keep it and later chunks pending.
 						Log.warn(LOGGER, "Error processing " + gzFile + ", will retry", ex);
+						break;
 					}						
 				};
 				
@@ -147,31 +185,64 @@ public class FileMonitorThread implements Callable<ExportResult> {
 					Log.debug(LOGGER, "Completion detected");
 					break;
 				} else {
-					wait += WAIT;
+					if (detector != null) {
+						// Stop watching once export job has ended and its files had time to appear
+						JobCompletionDetector.Status jobStatus = detector.getStatus(contextId);
+						if (jobStatus.getState() == JobCompletionDetector.State.FAILED) {
+							Log.error(LOGGER, "Export job failed for " + getName() + ": " + jobStatus.getMessage());
+							errorMessage = "Export job failed: " + jobStatus.getMessage();
+							break;
+						}
+						if (jobStatus.getState() == JobCompletionDetector.State.SUCCEEDED) {
+							if (jobFinishedWait == -1) {
+								jobFinishedWait = wait;
+							} else if (wait - jobFinishedWait > conf.getExportDirScanMaxMS()) {
+								Log.error(LOGGER, "Export job finished but GZ files are incomplete for " + getName());
+								errorMessage = "Export job finished but GZ files are incomplete";
+								break;
+							}
+						}
+					}
+					long waitStart = System.currentTimeMillis();
 					try {
-						Thread.sleep(WAIT);
+						// Wake up as soon as the watcher dispatches a file
+						// Watcher wakes this up on new files. Backs off while a file is still being written
+						Path gzFile = subscription.poll(scope.limit(pollPolicy.nextDelay()), TimeUnit.MILLISECONDS);
+						if (gzFile != null) {
+							Matcher m = gzFileNamePattern.matcher(gzFile.getFileName().toString());
+							if (m.matches() && !processed.contains(Integer.parseInt(m.group(1)))) {
+								pending.put(Integer.parseInt(m.group(1)), gzFile);
+							}
+						}
 					} catch (InterruptedException iex) {
-						Log.error(LOGGER, "Sleep interrupted", iex);
+						if (!scope.isCancelled()) {
+							Log.error(LOGGER, "Sleep interrupted", iex);
+						}
 					}
+					wait += System.currentTimeMillis() - waitStart;
 				}
 			}
+			Log.info(LOGGER, "Export directory polled " + pollPolicy.getPollCount() + " time(s) for " + getName());
 			if (completed) {
+				if (history != null) {
+					// Export was started elsewhere, duration is not known
+					history.record(customField.getFieldId(), contextId, -1, filesFound.size(), issueCount, -1);
+				}
 				filesFound.forEach(file -> {
 					result.addItem(customField, contextId, null, file);
 				});
 			} else {
 				result.addItem(customField, contextId, errorMessage, null);
 			}
-		} catch (IOException ioex) {
-			Log.error(LOGGER, "Failed to create temp directory", ioex);
 		} finally {
-			try {
-				FileUtils.deleteDirectory(extractDir.toFile());
-			} catch (IOException ioex) {
-				Log.error(LOGGER, "Failed to delete temp directory", ioex);
+			if (detector != null) {
+				detector.unregister(contextId);
 			}
 		}
+		journal.record(customField, contextId, result);
 		Log.info(LOGGER, "Verification ended for " + getName() + ": " + completed);
+		Log.info(LOGGER, "Verified " + bytesVerified + " byte(s) for " + getName() + " at " + 
+				GZVerifier.getBytesPerSecond(bytesVerified, nanosVerified) + " byte(s)/s");
 		Instant endTime = Instant.now();
 		Duration elapsed = Duration.between(
 				LocalTime.from(startTime.atZone(ZoneId.systemDefault())), 
@@ -185,6 +256,16 @@ public class FileMonitorThread implements Callable<ExportResult> {
 		return result;
 	}
 
+	@Override
+	public CustomField getCustomField() {
+		return customField;
+	}
+
+	@Override
+	public String getContextId() {
+		return contextId;
+	}
+
 	public String getName() {
 		return "customfield_" + customField.getFieldId() + "-" + contextId;
 	}
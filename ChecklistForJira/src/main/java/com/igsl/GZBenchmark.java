@@ -0,0 +1,122 @@
+package com.igsl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.igsl.json.ChecklistForJiraData;
+
+/**
+ * Compare wall time and peak disk use of parsing GZ files
+ * by extracting them to disk first, and by streaming them through GZIPInputStream.
+ */
+public class GZBenchmark {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final ObjectMapper OM = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	private static final Pattern GZ_PATTERN = Pattern.compile("customfield_([0-9]+)-([0-9]+)-([0-9]+)\\.gz");
+	private static final int ITERATIONS = 3;
+
+	private static class Measurement {
+		long elapsedMS = Long.MAX_VALUE;
+		long totalElapsedMS = 0;
+		long peakDiskBytes = 0;
+		int fileCount = 0;
+		int errorCount = 0;
+	}
+
+	public static void run(Config conf, String gzFolder) throws Exception {
+		List<Path> fileList = new ArrayList<>();
+		try (DirectoryStream<Path> gzDirStream = Files.newDirectoryStream(Paths.get(gzFolder), "*.gz")) {
+			gzDirStream.forEach(p -> {
+				if (GZ_PATTERN.matcher(p.getFileName().toString()).matches()) {
+					fileList.add(p);
+				}
+			});
+		}
+		fileList.sort(Comparator.comparing(Path::toString));
+		long compressedBytes = 0;
+		for (Path p : fileList) {
+			compressedBytes += Files.size(p);
+		}
+		Log.info(LOGGER, "Benchmarking " + fileList.size() + " GZ file(s), " + compressedBytes + " byte(s) compressed, " +
+				"buffer size: " + conf.getGzBufferSize() + ", iterations: " + ITERATIONS);
+		Measurement extract = new Measurement();
+		Measurement stream = new Measurement();
+		for (int i = 0; i < ITERATIONS; i++) {
+			// Alternate the order so neither mode always gets a warm page cache
+			if (i % 2 == 0) {
+				measure(conf, fileList, true, extract);
+				measure(conf, fileList, false, stream);
+			} else {
+				measure(conf, fileList, false, stream);
+				measure(conf, fileList, true, extract);
+			}
+		}
+		print("Extract to disk", extract);
+		print("Streaming", stream);
+	}
+
+	private static void print(String title, Measurement m) {
+		Log.info(LOGGER, title + ": " +
+				"Best: " + m.elapsedMS + " ms, " +
+				"Average: " + (m.totalElapsedMS / ITERATIONS) + " ms, " +
+				"Peak disk use: " + m.peakDiskBytes + " byte(s), " +
+				"Files: " + m.fileCount + ", " +
+				"Errors: " + m.errorCount);
+	}
+
+	private static void measure(Config conf, List<Path> fileList, boolean extractToDisk, Measurement m)
+			throws IOException {
+		ObjectReader reader = OM.readerFor(ChecklistForJiraData.class);
+		Path extractDir = null;
+		if (extractToDisk) {
+			extractDir = Files.createTempDirectory(Paths.get("."), "GZBenchmark.");
+		}
+		long diskBytes = 0;
+		int fileCount = 0;
+		int errorCount = 0;
+		long start = System.nanoTime();
+		try {
+			for (Path file : fileList) {
+				try {
+					ChecklistForJiraData data = ChecklistForJira.readGZ(
+							reader, file, extractDir, conf.getGzBufferSize());
+					Log.debug(LOGGER, "Parsed [" + file + "] type [" + data.getType() + "]");
+					fileCount++;
+				} catch (Exception ex) {
+					Log.error(LOGGER, "Error parsing " + file, ex);
+					errorCount++;
+				}
+			}
+		} finally {
+			long elapsedMS = (System.nanoTime() - start) / 1000000;
+			if (extractDir != null) {
+				// exportUsage keeps the extracted files until the end, so peak is the final size
+				diskBytes = FileUtils.sizeOfDirectory(extractDir.toFile());
+			}
+			m.elapsedMS = Math.min(m.elapsedMS, elapsedMS);
+			m.totalElapsedMS += elapsedMS;
+			m.peakDiskBytes = Math.max(m.peakDiskBytes, diskBytes);
+			m.fileCount = fileCount;
+			m.errorCount = errorCount;
+			if (extractDir != null) {
+				FileUtils.deleteDirectory(extractDir.toFile());
+			}
+		}
+	}
+}
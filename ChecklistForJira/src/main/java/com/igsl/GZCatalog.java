@@ -0,0 +1,264 @@
+package com.igsl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * On-disk catalog of processed GZ files, so exportUsage re-runs only inflate new or changed files.
+ *
+ * Entries are keyed by (field ID, context ID, chunk) packed into a long.
+ * Each entry stores size, last modified time and SHA-256 of the GZ file,
+ * and the {@link GZSummary} produced from it as JSON.
+ *
+ * File layout:
+ * 	Header: magic, version, entry count
+ * 	Index: fixed width records sorted by key
+ * 	Data: summary JSON of each entry in index order
+ *
+ * Loading reads the index into primitive arrays and the data section as a single byte array.
+ * Summaries are only deserialized on a hit.
+ */
+public class GZCatalog {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final ObjectMapper OM = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+	private static final int MAGIC = 0x475A4331;	// GZC1
+	// Increase when the file layout or GZSummary content changes, to discard old catalogs
+	private static final int VERSION = 1;
+	private static final int HASH_SIZE = 32;
+	private static final int BUFFER_SIZE = 65536;
+
+	// Bits used in packed key
+	private static final int CHUNK_BITS = 16;
+	private static final int CONTEXT_BITS = 24;
+	private static final int FIELD_BITS = 63 - CHUNK_BITS - CONTEXT_BITS;
+
+	private static class Entry {
+		long size;
+		long lastModified;
+		byte[] hash;
+		byte[] summary;
+	}
+
+	private Path file;
+
+	// Loaded catalog
+	private long[] keys = new long[0];
+	private long[] sizes = new long[0];
+	private long[] lastModified = new long[0];
+	private byte[] hashes = new byte[0];
+	private int[] offsets = new int[0];
+	private int[] lengths = new int[0];
+	private byte[] data = new byte[0];
+
+	// Entries seen in this run, written on save
+	private Map<Long, Entry> current = new ConcurrentHashMap<>();
+
+	// Statistics
+	private AtomicInteger hitCount = new AtomicInteger();
+	private AtomicInteger missCount = new AtomicInteger();
+
+	private GZCatalog(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Pack field ID, context ID and chunk into a key.
+	 * Returns -1 if any value is out of range.
+	 */
+	public static long getKey(long fieldId, long contextId, long chunk) {
+		if (fieldId < 0 || fieldId >= (1L << FIELD_BITS) ||
+			contextId < 0 || contextId >= (1L << CONTEXT_BITS) ||
+			chunk < 0 || chunk >= (1L << CHUNK_BITS)) {
+			return -1;
+		}
+		return (fieldId << (CONTEXT_BITS + CHUNK_BITS)) | (contextId << CHUNK_BITS) | chunk;
+	}
+
+	/**
+	 * Load catalog from file. If file does not exist or is invalid, an empty catalog is returned.
+	 */
+	public static GZCatalog load(Path file) {
+		GZCatalog catalog = new GZCatalog(file);
+		long start = System.nanoTime();
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				Log.warn(LOGGER, "GZ catalog [" + file + "] is not compatible, it will be rebuilt");
+				return catalog;
+			}
+			int count = in.readInt();
+			long[] keys = new long[count];
+			long[] sizes = new long[count];
+			long[] lastModified = new long[count];
+			byte[] hashes = new byte[count * HASH_SIZE];
+			int[] offsets = new int[count];
+			int[] lengths = new int[count];
+			int offset = 0;
+			for (int i = 0; i < count; i++) {
+				keys[i] = in.readLong();
+				sizes[i] = in.readLong();
+				lastModified[i] = in.readLong();
+				in.readFully(hashes, i * HASH_SIZE, HASH_SIZE);
+				lengths[i] = in.readInt();
+				offsets[i] = offset;
+				offset += lengths[i];
+			}
+			byte[] data = new byte[offset];
+			in.readFully(data);
+			catalog.keys = keys;
+			catalog.sizes = sizes;
+			catalog.lastModified = lastModified;
+			catalog.hashes = hashes;
+			catalog.offsets = offsets;
+			catalog.lengths = lengths;
+			catalog.data = data;
+			Log.info(LOGGER, "GZ catalog [" + file + "] loaded with " + count + " entries in " +
+					((System.nanoTime() - start) / 1000000) + " ms");
+		} catch (NoSuchFileException nsfex) {
+			Log.info(LOGGER, "GZ catalog [" + file + "] not found, it will be created");
+		} catch (IOException ioex) {
+			Log.error(LOGGER, "Unable to read GZ catalog [" + file + "], it will be rebuilt", ioex);
+		}
+		return catalog;
+	}
+
+	/**
+	 * Calculate SHA-256 of file.
+	 */
+	public static byte[] hash(Path file) throws IOException {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException nsaex) {
+			throw new IOException(nsaex);
+		}
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = Files.newInputStream(file)) {
+			int size;
+			while ((size = in.read(buffer)) != -1) {
+				md.update(buffer, 0, size);
+			}
+		}
+		return md.digest();
+	}
+
+	private boolean hashEquals(int index, byte[] hash) {
+		int offset = index * HASH_SIZE;
+		return Arrays.equals(hashes, offset, offset + HASH_SIZE, hash, 0, HASH_SIZE);
+	}
+
+	/**
+	 * Find summary for GZ file.
+	 * Size and last modified time are checked first.
+	 * If they differ, the content hash decides if the cached summary can still be used.
+	 * @return GZSummary, or null if file is new or changed.
+	 */
+	public GZSummary get(long key, Path gzFile) throws IOException {
+		if (key == -1) {
+			return null;
+		}
+		int index = Arrays.binarySearch(keys, key);
+		if (index < 0) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		long size = Files.size(gzFile);
+		long modified = Files.getLastModifiedTime(gzFile).toMillis();
+		byte[] hash = null;
+		if (size != sizes[index] || modified != lastModified[index]) {
+			hash = hash(gzFile);
+			if (!hashEquals(index, hash)) {
+				missCount.incrementAndGet();
+				return null;
+			}
+		} else {
+			hash = Arrays.copyOfRange(hashes, index * HASH_SIZE, (index + 1) * HASH_SIZE);
+		}
+		Entry entry = new Entry();
+		entry.size = size;
+		entry.lastModified = modified;
+		entry.hash = hash;
+		entry.summary = Arrays.copyOfRange(data, offsets[index], offsets[index] + lengths[index]);
+		GZSummary summary = OM.readValue(entry.summary, GZSummary.class);
+		current.put(key, entry);
+		hitCount.incrementAndGet();
+		return summary;
+	}
+
+	/**
+	 * Record summary for GZ file.
+	 */
+	public void put(long key, Path gzFile, GZSummary summary) throws IOException {
+		if (key == -1) {
+			return;
+		}
+		Entry entry = new Entry();
+		entry.size = Files.size(gzFile);
+		entry.lastModified = Files.getLastModifiedTime(gzFile).toMillis();
+		entry.hash = hash(gzFile);
+		entry.summary = OM.writeValueAsBytes(summary);
+		current.put(key, entry);
+	}
+
+	/**
+	 * Write entries seen in this run to file.
+	 * Written to a temporary file first and then moved, so an interrupted save does not corrupt the catalog.
+	 */
+	public void save() throws IOException {
+		long[] newKeys = current.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+		Path dir = file.toAbsolutePath().getParent();
+		Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(newKeys.length);
+				for (long key : newKeys) {
+					Entry entry = current.get(key);
+					out.writeLong(key);
+					out.writeLong(entry.size);
+					out.writeLong(entry.lastModified);
+					out.write(entry.hash, 0, HASH_SIZE);
+					out.writeInt(entry.summary.length);
+				}
+				for (long key : newKeys) {
+					out.write(current.get(key).summary);
+				}
+			}
+			try {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException amnsex) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		Log.info(LOGGER, "GZ catalog [" + file + "] saved with " + newKeys.length + " entries. " +
+				"Hit: " + hitCount + " Miss: " + missCount);
+	}
+}
@@ -0,0 +1,89 @@
+package com.igsl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data extracted from a single Checklist for Jira export GZ file.
+ * Contains only what is needed to write template and usage CSVs,
+ * so GZ files can be processed by worker threads and recorded later in a fixed order.
+ */
+public class GZSummary {
+
+	public static class Template {
+		private String name;
+		private String checklist;	// Converted checklist
+		public String getName() {
+			return name;
+		}
+		public void setName(String name) {
+			this.name = name;
+		}
+		public String getChecklist() {
+			return checklist;
+		}
+		public void setChecklist(String checklist) {
+			this.checklist = checklist;
+		}
+	}
+
+	private String fileName;
+	private String type;
+	// Manifest
+	private String contextId;
+	private String contextName;
+	private String checklist;	// Converted global and default local items
+	private List<String> issueTypes = new ArrayList<>();	// Issue type names
+	private List<String> projects = new ArrayList<>();	// Project keys
+	// Templates
+	private List<Template> templates = new ArrayList<>();
+
+	public String getFileName() {
+		return fileName;
+	}
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+	public String getType() {
+		return type;
+	}
+	public void setType(String type) {
+		this.type = type;
+	}
+	public String getContextId() {
+		return contextId;
+	}
+	public void setContextId(String contextId) {
+		this.contextId = contextId;
+	}
+	public String getContextName() {
+		return contextName;
+	}
+	public void setContextName(String contextName) {
+		this.contextName = contextName;
+	}
+	public String getChecklist() {
+		return checklist;
+	}
+	public void setChecklist(String checklist) {
+		this.checklist = checklist;
+	}
+	public List<String> getIssueTypes() {
+		return issueTypes;
+	}
+	public void setIssueTypes(List<String> issueTypes) {
+		this.issueTypes = issueTypes;
+	}
+	public List<String> getProjects() {
+		return projects;
+	}
+	public void setProjects(List<String> projects) {
+		this.projects = projects;
+	}
+	public List<Template> getTemplates() {
+		return templates;
+	}
+	public void setTemplates(List<Template> templates) {
+		this.templates = templates;
+	}
+}
@@ -0,0 +1,101 @@
+package com.igsl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.igsl.json.ChecklistForJiraData;
+
+/**
+ * Reads type, issueCount and the no. of elements in values from a Checklist for Jira export GZ file.
+ *
+ * The file is tokenized straight off GZIPInputStream.
+ * Elements in values are skipped without building any objects, and nothing is written to disk.
+ */
+public class GZVerifier {
+
+	private static final JsonFactory FACTORY = new JsonFactory();
+
+	private static final String FIELD_TYPE = "type";
+	private static final String FIELD_ISSUE_COUNT = "issueCount";
+	private static final String FIELD_VALUES = "values";
+
+	public static class Result {
+		private String type;
+		private long issueCount;
+		private long valueCount;
+		private long bytes;	// Compressed size
+		private long elapsedNanos;
+		public String getType() {
+			return type;
+		}
+		public long getIssueCount() {
+			return issueCount;
+		}
+		public long getValueCount() {
+			return valueCount;
+		}
+		public long getBytes() {
+			return bytes;
+		}
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+	}
+
+	/**
+	 * Calculate bytes per second.
+	 */
+	public static long getBytesPerSecond(long bytes, long elapsedNanos) {
+		if (elapsedNanos <= 0) {
+			return 0;
+		}
+		return (long) (bytes * 1000000000d / elapsedNanos);
+	}
+
+	public static Result verify(Path gzFile, int bufferSize) throws IOException {
+		long start = System.nanoTime();
+		Result result = new Result();
+		result.bytes = Files.size(gzFile);
+		try (	InputStream in = ChecklistForJira.openGZ(gzFile, bufferSize);
+				JsonParser parser = FACTORY.createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Root is not an object: " + gzFile);
+			}
+			JsonToken token;
+			while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+				token = parser.nextToken();
+				if (FIELD_TYPE.equals(name)) {
+					result.type = parser.getValueAsString();
+				} else if (FIELD_ISSUE_COUNT.equals(name)) {
+					result.issueCount = parser.getValueAsLong();
+				} else if (FIELD_VALUES.equals(name) && token == JsonToken.START_ARRAY) {
+					while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+						if (token == null) {
+							throw new IOException("Unexpected end of values array: " + gzFile);
+						}
+						// Skip over element, be it an object, array or scalar
+						parser.skipChildren();
+						result.valueCount++;
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+			if (token != JsonToken.END_OBJECT) {
+				// File is still being written
+				throw new IOException("Incomplete file: " + gzFile);
+			}
+		}
+		if (!ChecklistForJiraData.TYPE_VALUES.equals(result.type)) {
+			result.valueCount = 0;
+		}
+		result.elapsedNanos = System.nanoTime() - start;
+		return result;
+	}
+}
@@ -0,0 +1,113 @@
+package com.igsl;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URIBuilder;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomText;
+import org.htmlunit.html.HtmlElement;
+import org.htmlunit.html.HtmlPage;
+
+import com.igsl.mybatis.CustomField;
+
+/**
+ * Export engine using HtmlUnit browser, sharing a {@link JiraSession}.
+ */
+public class HtmlUnitExportEngine implements ExportEngine {
+
+	private Config conf;
+	private JiraSession session;
+
+	public HtmlUnitExportEngine(Config conf) {
+		this.conf = conf;
+		this.session = new JiraSession(conf);
+	}
+
+	@Override
+	public String getName() {
+		return ENGINE_HTMLUNIT;
+	}
+
+	@Override
+	public Map<String, URL> getExportPages(CustomField customField, ExportScope scope) throws Exception {
+		Map<String, URL> result = new LinkedHashMap<>();
+		try (JiraSession.Lease lease = session.acquire(scope)) {
+			// Go to custom field page
+			HtmlPage customFieldPage = session.getPage(lease, ExportThread.createURI(conf,
+					"/secure/admin/ConfigureCustomField!default.jspa?customFieldId=" + customField.getFieldId()));
+			// Find all the contexts
+			// Find a.aui-button with content "Export"
+			List<Object> buttonList = customFieldPage.getByXPath("//a[@class='aui-button'][text()[contains(., 'Export')]]");
+			for (Object linkElement : buttonList) {
+				HtmlElement link = (HtmlElement) linkElement;
+				// Grab fieldConfigId off the link
+				String href = link.getAttribute("href");
+				URIBuilder builder = new URIBuilder(href);
+				String fieldConfigId = null;
+				for (NameValuePair query : builder.getQueryParams()) {
+					if ("fieldConfigId".equals(query.getName())) {
+						fieldConfigId = query.getValue();
+						break;
+					}
+				}
+				result.put(fieldConfigId, customFieldPage.getFullyQualifiedUrl(href));
+			}
+		}
+		return result;
+	}
+
+	private static HtmlElement getExportButton(HtmlPage page) throws Exception {
+		List<Object> exportButtonList = page.getByXPath("//input[@class='aui-button'][@value='Export']");
+		if (exportButtonList.size() != 1) {
+			throw new Exception("Export button not found");
+		}
+		return (HtmlElement) exportButtonList.get(0);
+	}
+
+	@Override
+	public boolean isExportEnabled(URL exportPage, ExportScope scope) throws Exception {
+		try (JiraSession.Lease lease = session.acquire(scope)) {
+			HtmlElement button = getExportButton(session.getPage(lease, exportPage));
+			return (DomElement.ATTRIBUTE_NOT_DEFINED == button.getAttribute("disabled"));
+		}
+	}
+
+	@Override
+	public URL startExport(URL exportPage, ExportScope scope) throws Exception {
+		try (JiraSession.Lease lease = session.acquire(scope)) {
+			HtmlElement button = getExportButton(session.getPage(lease, exportPage));
+			if (DomElement.ATTRIBUTE_NOT_DEFINED != button.getAttribute("disabled")) {
+				return null;
+			}
+			HtmlPage resultPage = button.click();
+			return resultPage.getUrl();
+		}
+	}
+
+	@Override
+	public String getProgressMessage(URL progressPage, ExportScope scope) throws Exception {
+		try (JiraSession.Lease lease = session.acquire(scope)) {
+			HtmlPage resultPage = session.getPage(lease, progressPage);
+			int status = resultPage.getWebResponse().getStatusCode();
+			if (status >= 400) {
+				throw new ProgressPageException("HTTP " + status + " from progress page " + progressPage);
+			}
+			List<Object> messages = resultPage.getByXPath(""
+					+ "//main[@role='main'][./h2[@class='formtitle'][text()='Checklist Export']]/div[contains(@class,'aui-message')]/p[@class='title']/text()");
+			if (messages.size() == 1) {
+				DomText element = (DomText) messages.get(0);
+				return element.getTextContent();
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void close() {
+		session.close();
+	}
+}
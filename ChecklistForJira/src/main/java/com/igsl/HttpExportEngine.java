@@ -0,0 +1,413 @@
+package com.igsl;
+
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.igsl.mybatis.CustomField;
+
+/**
+ * Export engine posting Jira forms with java.net.http.HttpClient.
+ *
+ * No DOM is built. Pages are scanned with regular expressions for the few elements needed:
+ * the log out link (atl_token), context Export links, the Export form and the progress message.
+ * The same HttpClient and cookies are shared by all threads.
+ * A request in progress is cancelled if the caller's scope is cancelled or reaches its deadline.
+ */
+public class HttpExportEngine implements ExportEngine {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+	private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(5);
+
+	private static final String LOGIN_PATH = "/login.jsp";
+	private static final String WEBSUDO_PATH = "/secure/admin/WebSudoAuthenticate.jspa";
+	private static final String WEBSUDO_DESTINATION = "/secure/admin/ViewIssueTypes.jspa";
+	private static final String XSRF_COOKIE = "atlassian.xsrf.token";
+
+	private static final Pattern A_PATTERN = Pattern.compile("<a\\b([^>]*)>(.*?)</a>",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	private static final Pattern FORM_PATTERN = Pattern.compile("<form\\b([^>]*)>(.*?)</form>",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	private static final Pattern INPUT_PATTERN = Pattern.compile("<input\\b([^>]*)>",
+			Pattern.CASE_INSENSITIVE);
+	private static final Pattern P_PATTERN = Pattern.compile("<p\\b([^>]*)>(.*?)</p>",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile(
+			"([a-zA-Z_:][-a-zA-Z0-9_:.]*)(?:\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'>]+)))?");
+	private static final Pattern TAG_PATTERN = Pattern.compile("<[^>]*>");
+	private static final Pattern ISSUE_TYPES_HEADER_PATTERN = Pattern.compile(
+			"<h2[^>]*>\\s*Issue types\\s*</h2>", Pattern.CASE_INSENSITIVE);
+	private static final Pattern EXPORT_TITLE_PATTERN = Pattern.compile(
+			"<h2[^>]*class=\"formtitle\"[^>]*>\\s*Checklist Export\\s*</h2>", Pattern.CASE_INSENSITIVE);
+	private static final Pattern LOGIN_FORM_PATTERN = Pattern.compile(
+			"id=\"login-form\"|name=\"webSudoPassword\"", Pattern.CASE_INSENSITIVE);
+
+	private Config conf;
+	private CookieManager cookieManager = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+	private HttpClient client;
+	private volatile String atlToken;
+	// Incremented on each login, so threads detecting the same expiry login only once
+	private volatile int generation = 0;
+	private int loginCount = 0;
+
+	public HttpExportEngine(Config conf) {
+		this.conf = conf;
+		this.client = HttpClient.newBuilder()
+				.cookieHandler(cookieManager)
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.connectTimeout(CONNECT_TIMEOUT)
+				.build();
+	}
+
+	@Override
+	public String getName() {
+		return ENGINE_HTTP;
+	}
+
+	/**
+	 * Parse attributes of a start tag.
+	 */
+	private static Map<String, String> parseAttributes(String attributes) {
+		Map<String, String> result = new LinkedHashMap<>();
+		Matcher m = ATTRIBUTE_PATTERN.matcher(attributes);
+		while (m.find()) {
+			String value = m.group(2);
+			if (value == null) {
+				value = m.group(3);
+			}
+			if (value == null) {
+				value = m.group(4);
+			}
+			result.put(m.group(1).toLowerCase(), (value == null)? "" : unescape(value));
+		}
+		return result;
+	}
+
+	private static String unescape(String s) {
+		return s.replace("&quot;", "\"")
+				.replace("&#39;", "'")
+				.replace("&lt;", "<")
+				.replace("&gt;", ">")
+				.replace("&amp;", "&");
+	}
+
+	private static String getText(String html) {
+		return unescape(TAG_PATTERN.matcher(html).replaceAll("")).trim();
+	}
+
+	private static String encodeForm(Map<String, String> form) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, String> entry : form.entrySet()) {
+			if (sb.length() != 0) {
+				sb.append("&");
+			}
+			sb.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8))
+				.append("=")
+				.append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+		}
+		return sb.toString();
+	}
+
+	private HttpRequest.Builder request(URI uri, ExportScope scope) throws Exception {
+		scope.check();
+		return HttpRequest.newBuilder(uri)
+				.timeout(REQUEST_TIMEOUT)
+				.header("X-Atlassian-Token", "no-check");
+	}
+
+	/**
+	 * Send request, cancel it if scope is cancelled (including by its deadline).
+	 * 
+	 * The deadline is not passed as request timeout: 
+	 * HttpClient does not always cancel the timer of a redirected request, 
+	 * and a timer firing later closes the pooled connection under another request.
+	 */
+	private HttpResponse<String> execute(HttpRequest request, ExportScope scope) throws Exception {
+		CompletableFuture<HttpResponse<String>> future = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+		AutoCloseable abort = () -> future.cancel(true);
+		scope.register(abort);
+		try {
+			return future.get();
+		} catch (ExecutionException eex) {
+			if (eex.getCause() instanceof Exception) {
+				throw (Exception) eex.getCause();
+			}
+			throw eex;
+		} catch (CancellationException cex) {
+			scope.check();
+			throw cex;
+		} catch (InterruptedException iex) {
+			future.cancel(true);
+			throw iex;
+		} finally {
+			scope.unregister(abort);
+		}
+	}
+
+	private HttpResponse<String> get(URI uri, ExportScope scope) throws Exception {
+		return execute(request(uri, scope).GET().build(), scope);
+	}
+
+	private HttpResponse<String> post(URI uri, Map<String, String> form, ExportScope scope) throws Exception {
+		return execute(request(uri, scope)
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(encodeForm(form)))
+				.build(), 
+				scope);
+	}
+
+	private static boolean isExpired(HttpResponse<String> response) {
+		String url = response.uri().toString();
+		return	url.contains(LOGIN_PATH) ||
+				url.contains(WEBSUDO_PATH) ||
+				LOGIN_FORM_PATTERN.matcher(response.body()).find();
+	}
+
+	/**
+	 * Login and WebSudo, unless another thread has done so since expected generation.
+	 */
+	private synchronized void login(int expectedGeneration, ExportScope scope) throws Exception {
+		if (atlToken != null && generation != expectedGeneration) {
+			return;
+		}
+		atlToken = null;
+		cookieManager.getCookieStore().removeAll();
+		Map<String, String> loginForm = new LinkedHashMap<>();
+		loginForm.put("os_username", conf.getSourceUser());
+		loginForm.put("os_password", conf.getSourcePassword());
+		loginForm.put("os_destination", "");
+		loginForm.put("login", "Log In");
+		HttpResponse<String> landingPage = post(ExportThread.createURI(conf, LOGIN_PATH).toURI(), loginForm, scope);
+		if (!landingPage.uri().toString().contains("/secure/")) {
+			throw new Exception("Login failed, login form does not work");
+		}
+		Log.info(LOGGER, "Login successful");
+		String token = null;
+		Matcher a = A_PATTERN.matcher(landingPage.body());
+		while (a.find()) {
+			Map<String, String> attributes = parseAttributes(a.group(1));
+			if ("log_out".equals(attributes.get("id")) && attributes.containsKey("href")) {
+				for (NameValuePair query : new URIBuilder(attributes.get("href")).getQueryParams()) {
+					if ("atl_token".equals(query.getName())) {
+						token = query.getValue();
+						break;
+					}
+				}
+				break;
+			}
+		}
+		if (token == null) {
+			// Same value is kept in XSRF cookie
+			for (HttpCookie cookie : cookieManager.getCookieStore().getCookies()) {
+				if (XSRF_COOKIE.equals(cookie.getName())) {
+					token = cookie.getValue();
+				}
+			}
+		}
+		if (token == null) {
+			throw new Exception("Login failed, atl_token not found");
+		}
+		// Admin login
+		Map<String, String> webSudoForm = new LinkedHashMap<>();
+		webSudoForm.put("atl_token", token);
+		webSudoForm.put("webSudoIsPost", "false");
+		webSudoForm.put("webSudoDestination", WEBSUDO_DESTINATION);
+		webSudoForm.put("webSudoPassword", conf.getSourcePassword());
+		HttpResponse<String> adminPage = post(ExportThread.createURI(conf, WEBSUDO_PATH).toURI(), webSudoForm, scope);
+		if (!ISSUE_TYPES_HEADER_PATTERN.matcher(adminPage.body()).find()) {
+			throw new Exception("Admin login failed");
+		}
+		Log.info(LOGGER, "Admin login successful");
+		atlToken = token;
+		generation++;
+		loginCount++;
+	}
+
+	/**
+	 * GET page, login again and resend once if session or WebSudo has expired.
+	 * Forms are not resent this way, their atl_token belongs to the expired session.
+	 */
+	private HttpResponse<String> send(URI uri, ExportScope scope) throws Exception {
+		int expectedGeneration = generation;
+		if (atlToken == null) {
+			login(expectedGeneration, scope);
+			expectedGeneration = generation;
+		}
+		HttpResponse<String> response = get(uri, scope);
+		if (isExpired(response)) {
+			Log.info(LOGGER, "Jira session expired, logging in again");
+			login(expectedGeneration, scope);
+			response = get(uri, scope);
+			if (isExpired(response)) {
+				throw new Exception("Unable to access page after login: " + uri);
+			}
+		}
+		return response;
+	}
+
+	@Override
+	public Map<String, URL> getExportPages(CustomField customField, ExportScope scope) throws Exception {
+		Map<String, URL> result = new LinkedHashMap<>();
+		HttpResponse<String> customFieldPage = send(ExportThread.createURI(conf,
+				"/secure/admin/ConfigureCustomField!default.jspa?customFieldId=" + customField.getFieldId()).toURI(),
+				scope);
+		// Find a.aui-button with content "Export"
+		Matcher a = A_PATTERN.matcher(customFieldPage.body());
+		while (a.find()) {
+			Map<String, String> attributes = parseAttributes(a.group(1));
+			if ("aui-button".equals(attributes.get("class")) &&
+				attributes.containsKey("href") &&
+				getText(a.group(2)).contains("Export")) {
+				String href = attributes.get("href");
+				String fieldConfigId = null;
+				for (NameValuePair query : new URIBuilder(href).getQueryParams()) {
+					if ("fieldConfigId".equals(query.getName())) {
+						fieldConfigId = query.getValue();
+						break;
+					}
+				}
+				result.put(fieldConfigId, customFieldPage.uri().resolve(href).toURL());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Export form found on export page.
+	 */
+	private static class ExportForm {
+		URI action;
+		String method;
+		Map<String, String> fields = new LinkedHashMap<>();
+		boolean enabled;
+	}
+
+	private ExportForm getExportForm(URL exportPage, ExportScope scope) throws Exception {
+		HttpResponse<String> page = send(exportPage.toURI(), scope);
+		Matcher form = FORM_PATTERN.matcher(page.body());
+		while (form.find()) {
+			ExportForm result = new ExportForm();
+			List<Map<String, String>> inputs = new ArrayList<>();
+			Map<String, String> button = null;
+			Matcher input = INPUT_PATTERN.matcher(form.group(2));
+			while (input.find()) {
+				Map<String, String> attributes = parseAttributes(input.group(1));
+				if ("aui-button".equals(attributes.get("class")) && "Export".equals(attributes.get("value"))) {
+					button = attributes;
+				} else {
+					inputs.add(attributes);
+				}
+			}
+			if (button == null) {
+				continue;
+			}
+			Map<String, String> formAttributes = parseAttributes(form.group(1));
+			String action = formAttributes.get("action");
+			result.action = (action == null || action.isEmpty())? page.uri() : page.uri().resolve(action);
+			result.method = formAttributes.getOrDefault("method", "get");
+			result.enabled = !button.containsKey("disabled");
+			for (Map<String, String> attributes : inputs) {
+				String type = attributes.getOrDefault("type", "text").toLowerCase();
+				String name = attributes.get("name");
+				if (name == null || type.equals("submit") || type.equals("button") ||
+					((type.equals("checkbox") || type.equals("radio")) && !attributes.containsKey("checked"))) {
+					continue;
+				}
+				result.fields.put(name, attributes.getOrDefault("value", ""));
+			}
+			if (button.containsKey("name")) {
+				result.fields.put(button.get("name"), button.get("value"));
+			}
+			return result;
+		}
+		throw new Exception("Export button not found");
+	}
+
+	@Override
+	public boolean isExportEnabled(URL exportPage, ExportScope scope) throws Exception {
+		return getExportForm(exportPage, scope).enabled;
+	}
+
+	private HttpResponse<String> submit(ExportForm form, ExportScope scope) throws Exception {
+		if ("post".equalsIgnoreCase(form.method)) {
+			return post(form.action, form.fields, scope);
+		}
+		URIBuilder builder = new URIBuilder(form.action);
+		form.fields.forEach(builder::addParameter);
+		return get(builder.build(), scope);
+	}
+
+	@Override
+	public URL startExport(URL exportPage, ExportScope scope) throws Exception {
+		ExportForm form = getExportForm(exportPage, scope);
+		if (!form.enabled) {
+			return null;
+		}
+		int expectedGeneration = generation;
+		HttpResponse<String> resultPage = submit(form, scope);
+		if (isExpired(resultPage)) {
+			// atl_token in form belongs to the expired session, reload form instead of resending it
+			Log.info(LOGGER, "Jira session expired, logging in again");
+			login(expectedGeneration, scope);
+			form = getExportForm(exportPage, scope);
+			if (!form.enabled) {
+				return null;
+			}
+			resultPage = submit(form, scope);
+			if (isExpired(resultPage)) {
+				throw new Exception("Unable to access page after login: " + form.action);
+			}
+		}
+		return resultPage.uri().toURL();
+	}
+
+	@Override
+	public String getProgressMessage(URL progressPage, ExportScope scope) throws Exception {
+		HttpResponse<String> response = send(progressPage.toURI(), scope);
+		if (response.statusCode() >= 400) {
+			throw new ProgressPageException("HTTP " + response.statusCode() + " from progress page " + progressPage);
+		}
+		String body = response.body();
+		Matcher title = EXPORT_TITLE_PATTERN.matcher(body);
+		if (title.find()) {
+			// p.title in the aui-message following the form title
+			Matcher p = P_PATTERN.matcher(body);
+			p.region(title.end(), body.length());
+			while (p.find()) {
+				if ("title".equals(parseAttributes(p.group(1)).get("class"))) {
+					return getText(p.group(2));
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void close() {
+		Log.info(LOGGER, "HTTP export engine closed, login count: " + loginCount);
+	}
+}
@@ -0,0 +1,231 @@
+package com.igsl;
+
+import java.net.URL;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.htmlunit.CookieManager;
+import org.htmlunit.Page;
+import org.htmlunit.WebClient;
+import org.htmlunit.html.HtmlPage;
+
+/**
+ * Authenticated Jira session shared by export threads.
+ *
+ * Holds a bounded pool of WebClients sharing one cookie jar.
+ * Login and WebSudo are performed once, and again only when a page shows the session or WebSudo has expired.
+ *
+ * Requests time out at the deadline of the scope the WebClient is leased in.
+ * If the scope is cancelled, the WebClient is closed to abort the request in progress,
+ * and replaced in the pool when the lease ends.
+ *
+ * Usage:
+ * 	try (JiraSession.Lease lease = session.acquire(scope)) {
+ * 		HtmlPage page = session.getPage(lease, url);
+ * 	}
+ */
+public class JiraSession implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private static final String LOGIN_PATH = "/login.jsp";
+	private static final String WEBSUDO_PATH = "/secure/admin/WebSudoAuthenticate.jspa";
+	// History is not needed, limit memory used by each WebClient
+	private static final int HISTORY_LIMIT = 1;
+	// HtmlUnit default
+	private static final int REQUEST_TIMEOUT = 90000;
+
+	/**
+	 * Exclusive use of a pooled WebClient.
+	 */
+	public static class Lease implements AutoCloseable {
+		private JiraSession session;
+		private WebClient client;
+		private ExportScope scope;
+		private volatile boolean aborted = false;
+		// Registered with scope
+		private AutoCloseable abort = () -> {
+			aborted = true;
+			client.close();
+		};
+		private Lease(JiraSession session, WebClient client, ExportScope scope) {
+			this.session = session;
+			this.client = client;
+			this.scope = scope;
+			scope.register(abort);
+		}
+		public WebClient getClient() {
+			return client;
+		}
+		public ExportScope getScope() {
+			return scope;
+		}
+		@Override
+		public void close() {
+			scope.unregister(abort);
+			if (aborted) {
+				session.replace(client);
+			} else {
+				session.release(client);
+			}
+		}
+	}
+
+	private Config conf;
+	private int poolSize;
+	private CookieManager cookieManager = new CookieManager();
+	private BlockingQueue<WebClient> idle = new LinkedBlockingQueue<>();
+	private AtomicInteger created = new AtomicInteger();
+	private volatile String atlToken;
+	// Incremented on each login, so threads detecting the same expiry login only once
+	private volatile int generation = 0;
+	private AtomicInteger loginCount = new AtomicInteger();
+
+	public JiraSession(Config conf) {
+		this.conf = conf;
+		this.poolSize = Math.max(1, conf.getSessionPoolSize());
+	}
+
+	/**
+	 * Borrow a WebClient, waiting if all of them are in use, until deadline of scope.
+	 * Logs in if not done already.
+	 */
+	public Lease acquire(ExportScope scope) throws Exception {
+		scope.check();
+		WebClient client = idle.poll();
+		if (client == null) {
+			if (created.incrementAndGet() <= poolSize) {
+				client = createClient();
+			} else {
+				created.decrementAndGet();
+				client = idle.poll(scope.getRemainingMillis(), TimeUnit.MILLISECONDS);
+				if (client == null) {
+					scope.check();
+					throw new ExportScope.CancelledException(scope.getName() + ": Deadline exceeded waiting for WebClient");
+				}
+			}
+		}
+		Lease lease = new Lease(this, client, scope);
+		int expectedGeneration = generation;
+		if (atlToken == null) {
+			try {
+				applyTimeout(lease);
+				login(client, expectedGeneration);
+			} catch (Exception ex) {
+				lease.close();
+				throw ex;
+			}
+		}
+		return lease;
+	}
+
+	private void release(WebClient client) {
+		idle.offer(client);
+	}
+
+	/**
+	 * Replace WebClient closed by cancellation.
+	 */
+	private void replace(WebClient client) {
+		Log.debug(LOGGER, "WebClient closed by cancellation, replaced");
+		idle.offer(createClient());
+	}
+
+	/**
+	 * Limit request timeout to time remaining in scope.
+	 */
+	private static void applyTimeout(Lease lease) throws Exception {
+		lease.getScope().check();
+		lease.getClient().getOptions().setTimeout(
+				(int) Math.max(1, lease.getScope().limit(REQUEST_TIMEOUT)));
+	}
+
+	private WebClient createClient() {
+		WebClient client = new WebClient();
+		client.getOptions().setThrowExceptionOnFailingStatusCode(false);
+		client.getOptions().setThrowExceptionOnScriptError(false);
+		client.getOptions().setHistorySizeLimit(HISTORY_LIMIT);
+		client.setCookieManager(cookieManager);
+		Log.debug(LOGGER, "WebClient created, pool size: " + created.get() + "/" + poolSize);
+		return client;
+	}
+
+	/**
+	 * Login and WebSudo, unless another thread has done so since expected generation.
+	 */
+	private synchronized void login(WebClient client, int expectedGeneration) throws Exception {
+		if (atlToken != null && generation != expectedGeneration) {
+			return;
+		}
+		cookieManager.clearCookies();
+		atlToken = null;
+		String token = ExportThread.loginJira(conf, client);
+		if (token == null) {
+			throw new Exception("Login failed");
+		}
+		atlToken = token;
+		generation++;
+		Log.info(LOGGER, "Jira session established, login count: " + loginCount.incrementAndGet());
+	}
+
+	/**
+	 * Check if page is the login page or WebSudo page instead of the page requested.
+	 */
+	private static boolean isExpired(Page page) {
+		String url = page.getUrl().toString();
+		if (url.contains(LOGIN_PATH) || url.contains(WEBSUDO_PATH)) {
+			return true;
+		}
+		if (page instanceof HtmlPage) {
+			HtmlPage html = (HtmlPage) page;
+			return	html.getFirstByXPath("//form[@id='login-form']") != null ||
+					html.getFirstByXPath("//input[@name='webSudoPassword']") != null;
+		}
+		return false;
+	}
+
+	/**
+	 * Load page using leased WebClient.
+	 * If session or WebSudo has expired, login again and reload once.
+	 */
+	public HtmlPage getPage(Lease lease, URL url) throws Exception {
+		int expectedGeneration = generation;
+		applyTimeout(lease);
+		Page page = lease.getClient().getPage(url);
+		if (isExpired(page)) {
+			Log.info(LOGGER, "Jira session expired, logging in again");
+			applyTimeout(lease);
+			login(lease.getClient(), expectedGeneration);
+			applyTimeout(lease);
+			page = lease.getClient().getPage(url);
+			if (isExpired(page)) {
+				throw new Exception("Unable to access page after login: " + url);
+			}
+		}
+		if (!(page instanceof HtmlPage)) {
+			throw new Exception("Unexpected content from " + url + ": " + page.getWebResponse().getContentType());
+		}
+		return (HtmlPage) page;
+	}
+
+	public String getAtlToken() {
+		return atlToken;
+	}
+
+	public int getLoginCount() {
+		return loginCount.get();
+	}
+
+	@Override
+	public void close() {
+		WebClient client;
+		while ((client = idle.poll()) != null) {
+			client.close();
+		}
+		Log.info(LOGGER, "Jira session closed, login count: " + loginCount.get() + ", WebClients: " + created.get());
+	}
+}
@@ -0,0 +1,245 @@
+package com.igsl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.igsl.mybatis.DataMapper;
+import com.igsl.mybatis.ExportJob;
+
+/**
+ * Detects completion of export jobs (ExportChecklistJobRunner) from Jira's scheduler tables.
+ *
+ * All registered contexts are checked with one query every jobPollMS,
+ * instead of each context reading its progress page or export directory.
+ * Only job runs started after the given time (by default, when the context is registered) are considered.
+ * Registration time is converted to database time, so clock difference between this computer and the database does not matter.
+ *
+ * If the query fails, the detector is disabled and callers fall back to their own polling.
+ */
+public class JobCompletionDetector implements Runnable, AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	// Allowance for job starting in the same second as registration
+	private static final long SINCE_MARGIN_MS = 1000;
+
+	public static enum State {
+		PENDING,	// No job found yet
+		SCHEDULED,	// Job waiting or running
+		SUCCEEDED,
+		FAILED,
+		UNAVAILABLE	// Detector not working
+	}
+
+	public static class Status {
+		private State state;
+		private String message;
+		private Status(State state, String message) {
+			this.state = state;
+			this.message = message;
+		}
+		public State getState() {
+			return state;
+		}
+		public String getMessage() {
+			return message;
+		}
+		@Override
+		public String toString() {
+			return state + ((message != null)? ": " + message : "");
+		}
+	}
+
+	private static final Status PENDING = new Status(State.PENDING, null);
+	private static final Status UNAVAILABLE = new Status(State.UNAVAILABLE, null);
+
+	private SqlSessionFactory factory;
+	private long pollMS;
+	private long skewMS;	// Database time - local time
+	private volatile boolean available = true;
+	private Thread thread;
+	// Key is context ID, value is database time of registration
+	private Map<String, Long> registered = new HashMap<>();
+	private Map<String, Status> statuses = new HashMap<>();
+	private long queryCount = 0;
+
+	private JobCompletionDetector(Config conf, SqlSessionFactory factory, long skewMS) {
+		this.factory = factory;
+		this.pollMS = Math.max(1, conf.getJobPollMS());
+		this.skewMS = skewMS;
+		thread = new Thread(this, "JobCompletionDetector");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Create detector if enabled in config.
+	 * @return Detector, or null if disabled or database cannot be read.
+	 */
+	public static JobCompletionDetector create(Config conf) {
+		if (!conf.isJobDetection()) {
+			return null;
+		}
+		try {
+			SqlSessionFactory factory = ChecklistForJira.setupMyBatis(conf);
+			long skew;
+			try (SqlSession session = factory.openSession()) {
+				DataMapper mapper = session.getMapper(DataMapper.class);
+				skew = mapper.getDatabaseTime().getTime() - System.currentTimeMillis();
+			}
+			Log.info(LOGGER, "Export job detection enabled, database clock difference: " + skew + " ms");
+			return new JobCompletionDetector(conf, factory, skew);
+		} catch (Exception ex) {
+			Log.warn(LOGGER, "Unable to read database, export job detection disabled: " + ex.getMessage());
+			return null;
+		}
+	}
+
+	public boolean isAvailable() {
+		return available;
+	}
+
+	/**
+	 * Start tracking context. Call before triggering export.
+	 */
+	public synchronized void register(String contextId) {
+		register(contextId, System.currentTimeMillis());
+	}
+
+	/**
+	 * Start tracking context whose export may have been triggered earlier, e.g. when resuming.
+	 * @param sinceMS Local time export was triggered, 0 to accept job runs started at any time.
+	 */
+	public synchronized void register(String contextId, long sinceMS) {
+		registered.put(contextId, (sinceMS > 0)? sinceMS + skewMS - SINCE_MARGIN_MS : 0L);
+		statuses.put(contextId, PENDING);
+		notifyAll();
+	}
+
+	public synchronized void unregister(String contextId) {
+		registered.remove(contextId);
+		statuses.remove(contextId);
+	}
+
+	public synchronized Status getStatus(String contextId) {
+		if (!available) {
+			return UNAVAILABLE;
+		}
+		return statuses.getOrDefault(contextId, PENDING);
+	}
+
+	/**
+	 * Wait until status of context changes from given status, or timeout.
+	 * @return Current status.
+	 */
+	public synchronized Status await(String contextId, Status current, long timeoutMS) throws InterruptedException {
+		long end = System.currentTimeMillis() + timeoutMS;
+		Status status = getStatus(contextId);
+		while (status == current) {
+			long remaining = end - System.currentTimeMillis();
+			if (remaining <= 0) {
+				break;
+			}
+			wait(remaining);
+			status = getStatus(contextId);
+		}
+		return status;
+	}
+
+	private void poll() {
+		List<String> contextIds;
+		long since;
+		synchronized (this) {
+			contextIds = new ArrayList<>(registered.keySet());
+			since = registered.values().stream().mapToLong(Long::longValue).min().orElse(0);
+		}
+		if (contextIds.size() == 0) {
+			return;
+		}
+		List<ExportJob> jobs;
+		try (SqlSession session = factory.openSession()) {
+			DataMapper mapper = session.getMapper(DataMapper.class);
+			jobs = mapper.getExportJobs(contextIds, new Date(since));
+			queryCount++;
+		} catch (Exception ex) {
+			Log.warn(LOGGER, "Unable to read export jobs, export job detection disabled: " + ex.getMessage());
+			synchronized (this) {
+				available = false;
+				notifyAll();
+			}
+			return;
+		}
+		synchronized (this) {
+			Map<String, Status> updated = new HashMap<>();
+			for (ExportJob job : jobs) {
+				for (String contextId : contextIds) {
+					if (!job.getJobId().endsWith("-" + contextId) || !registered.containsKey(contextId)) {
+						continue;
+					}
+					Status status;
+					if (job.isScheduled()) {
+						status = new Status(State.SCHEDULED, job.getJobId());
+					} else if (job.getStartTime() == null || job.getStartTime().getTime() < registered.get(contextId)) {
+						// Earlier export
+						continue;
+					} else if ("S".equalsIgnoreCase(job.getRunOutcome())) {
+						status = new Status(State.SUCCEEDED, job.getInfoMessage());
+					} else {
+						status = new Status(State.FAILED,
+								"Outcome: " + job.getRunOutcome() + " " + job.getInfoMessage());
+					}
+					// A finished run overrides a scheduled entry
+					Status previous = updated.get(contextId);
+					if (previous == null || previous.state == State.SCHEDULED) {
+						updated.put(contextId, status);
+					}
+				}
+			}
+			boolean changed = false;
+			for (String contextId : contextIds) {
+				if (!registered.containsKey(contextId)) {
+					continue;
+				}
+				Status previous = statuses.get(contextId);
+				Status status = updated.get(contextId);
+				if (status == null) {
+					// Job no longer scheduled but run not recorded yet, keep previous
+					continue;
+				}
+				if (previous == null || previous.state != status.state) {
+					Log.debug(LOGGER, "Export job of context " + contextId + ": " + status);
+					statuses.put(contextId, status);
+					changed = true;
+				}
+			}
+			if (changed) {
+				notifyAll();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		while (available) {
+			try {
+				Thread.sleep(pollMS);
+			} catch (InterruptedException iex) {
+				break;
+			}
+			poll();
+		}
+	}
+
+	@Override
+	public void close() {
+		thread.interrupt();
+		Log.info(LOGGER, "Export job detection queried database " + queryCount + " time(s)");
+	}
+}
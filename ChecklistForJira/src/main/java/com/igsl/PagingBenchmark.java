@@ -0,0 +1,165 @@
+package com.igsl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.igsl.rest.Paged;
+import com.igsl.rest.Pagination;
+import com.igsl.rest.Project;
+import com.igsl.rest.RestUtil;
+import com.igsl.rest.SinglePage;
+
+/**
+ * Compare wall time, CPU time and heap allocation of parsing REST API pages
+ * by reading them into a JsonNode tree first, and by binding items from the stream.
+ *
+ * Pages are generated in memory in the format of Cloud project search (Paged)
+ * and Server project list (SinglePage), so no Jira is needed.
+ */
+public class PagingBenchmark {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int TOTAL_ITEMS = 100000;
+	private static final int[] PAGE_SIZES = { 100, 1000, 10000 };
+	private static final int ITERATIONS = 5;
+
+	private static class Measurement {
+		long elapsedMS = Long.MAX_VALUE;
+		long totalElapsedMS = 0;
+		long totalCpuMS = 0;
+		long totalAllocatedBytes = 0;
+		int itemCount = 0;
+	}
+
+	public static void run(Config conf) throws Exception {
+		ObjectMapper om = RestUtil.getObjectMapper();
+		Log.info(LOGGER, "Benchmarking " + TOTAL_ITEMS + " item(s), iterations: " + ITERATIONS);
+		for (int pageSize : PAGE_SIZES) {
+			for (boolean paged : new boolean[] { true, false }) {
+				List<byte[]> pages = generate(om, pageSize, paged);
+				long bytes = 0;
+				for (byte[] page : pages) {
+					bytes += page.length;
+				}
+				String title = (paged? "Paged" : "SinglePage") + " " + pages.size() + " page(s) of " + pageSize +
+						" item(s), " + bytes + " byte(s)";
+				// Warm up
+				measure(om, pages, paged, false, new Measurement());
+				measure(om, pages, paged, true, new Measurement());
+				Measurement tree = new Measurement();
+				Measurement stream = new Measurement();
+				for (int i = 0; i < ITERATIONS; i++) {
+					// Alternate the order so neither mode always runs after the other's garbage
+					if (i % 2 == 0) {
+						measure(om, pages, paged, false, tree);
+						measure(om, pages, paged, true, stream);
+					} else {
+						measure(om, pages, paged, true, stream);
+						measure(om, pages, paged, false, tree);
+					}
+				}
+				print(title + " JsonNode tree", tree);
+				print(title + " Streaming", stream);
+			}
+		}
+	}
+
+	private static void print(String title, Measurement m) {
+		Log.info(LOGGER, title + ": " +
+				"Best: " + m.elapsedMS + " ms, " +
+				"Average: " + (m.totalElapsedMS / ITERATIONS) + " ms, " +
+				"Average CPU: " + (m.totalCpuMS / ITERATIONS) + " ms, " +
+				"Average allocated: " + (m.totalAllocatedBytes / ITERATIONS) + " byte(s), " +
+				"Items: " + m.itemCount);
+	}
+
+	private static void measure(ObjectMapper om, List<byte[]> pages, boolean paged, boolean streaming, Measurement m)
+			throws IOException {
+		ExportEngineStats.Sample sample = ExportEngineStats.start();
+		int itemCount = 0;
+		long start = System.nanoTime();
+		Pagination<Project> pagination = paged?
+				new Paged<>(Project.class) :
+				new SinglePage<>(Project.class, null);
+		pagination.streaming(streaming);
+		for (byte[] page : pages) {
+			try (InputStream in = new ByteArrayInputStream(page)) {
+				pagination.parse(in, om);
+			}
+			itemCount += pagination.getObjects().size();
+		}
+		long elapsedMS = (System.nanoTime() - start) / 1000000;
+		m.elapsedMS = Math.min(m.elapsedMS, elapsedMS);
+		m.totalElapsedMS += elapsedMS;
+		long cpuNanos = ExportEngineStats.getCpuNanos(sample);
+		m.totalCpuMS += (cpuNanos < 0)? -1 : cpuNanos / 1000000;
+		m.totalAllocatedBytes += ExportEngineStats.getAllocatedBytes(sample);
+		m.itemCount = itemCount;
+	}
+
+	/**
+	 * Generate pages of projects with the attributes Jira returns, most of which are not bound.
+	 */
+	private static List<byte[]> generate(ObjectMapper om, int pageSize, boolean paged) throws IOException {
+		List<byte[]> pages = new ArrayList<>();
+		for (int startAt = 0; startAt < TOTAL_ITEMS; startAt += pageSize) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try (JsonGenerator gen = om.getFactory().createGenerator(out)) {
+				if (paged) {
+					gen.writeStartObject();
+					gen.writeStringField("self", "https://example.atlassian.net/rest/api/3/project/search?startAt=" + startAt);
+					gen.writeNumberField("maxResults", pageSize);
+					gen.writeNumberField("startAt", startAt);
+					gen.writeNumberField("total", TOTAL_ITEMS);
+					gen.writeBooleanField("isLast", startAt + pageSize >= TOTAL_ITEMS);
+					gen.writeArrayFieldStart(Paged.DEFAULT_VALUES);
+				} else {
+					gen.writeStartArray();
+				}
+				for (int i = startAt; i < Math.min(TOTAL_ITEMS, startAt + pageSize); i++) {
+					gen.writeStartObject();
+					gen.writeStringField("expand", "description,lead,issueTypes,url,projectKeys,permissions,insight");
+					gen.writeStringField("self", "https://example.atlassian.net/rest/api/3/project/" + (10000 + i));
+					gen.writeStringField("id", Integer.toString(10000 + i));
+					gen.writeStringField("key", "PRJ" + i);
+					gen.writeStringField("name", "Project " + i);
+					gen.writeObjectFieldStart("avatarUrls");
+					for (String size : new String[] { "48x48", "24x24", "16x16", "32x32" }) {
+						gen.writeStringField(size,
+								"https://example.atlassian.net/rest/api/3/universal_avatar/view/type/project/avatar/" +
+								(10400 + i % 10) + "?size=" + size);
+					}
+					gen.writeEndObject();
+					gen.writeObjectFieldStart("projectCategory");
+					gen.writeStringField("self", "https://example.atlassian.net/rest/api/3/projectCategory/" + (i % 5));
+					gen.writeStringField("id", Integer.toString(i % 5));
+					gen.writeStringField("name", "Category " + (i % 5));
+					gen.writeStringField("description", "Projects of category " + (i % 5));
+					gen.writeEndObject();
+					gen.writeStringField("projectTypeKey", "software");
+					gen.writeBooleanField("simplified", false);
+					gen.writeStringField("style", "classic");
+					gen.writeBooleanField("isPrivate", false);
+					gen.writeObjectFieldStart("properties");
+					gen.writeEndObject();
+					gen.writeEndObject();
+				}
+				gen.writeEndArray();
+				if (paged) {
+					gen.writeEndObject();
+				}
+			}
+			pages.add(out.toByteArray());
+		}
+		return pages;
+	}
+}
@@ -0,0 +1,68 @@
+package com.igsl;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Delay between polls of a single context.
+ *
+ * Starts at the minimum and is multiplied after each poll without progress, up to the maximum.
+ * Each delay is reduced by a random fraction (jitter), so contexts started together do not poll in step.
+ * Calling {@link #progress()} returns the delay to the minimum.
+ *
+ * Not thread-safe, create one for each context.
+ */
+public class PollPolicy {
+
+	private long minMS;
+	private long maxMS;
+	private double multiplier;
+	private double jitter;
+	private long currentMS;
+	private int pollCount = 0;
+
+	public PollPolicy(long minMS, long maxMS, double multiplier, double jitter) {
+		this.minMS = Math.max(1, minMS);
+		this.maxMS = Math.max(this.minMS, maxMS);
+		this.multiplier = Math.max(1, multiplier);
+		this.jitter = Math.min(1, Math.max(0, jitter));
+		this.currentMS = this.minMS;
+	}
+
+	public static PollPolicy create(Config conf) {
+		return new PollPolicy(conf.getPollMinMS(), conf.getPollMaxMS(), conf.getPollMultiplier(), conf.getPollJitter());
+	}
+
+	/**
+	 * Get delay before next poll and count the poll.
+	 */
+	public long nextDelay() {
+		pollCount++;
+		long delay = currentMS;
+		if (jitter > 0) {
+			delay -= (long) (delay * jitter * ThreadLocalRandom.current().nextDouble());
+		}
+		currentMS = Math.min(maxMS, (long) (currentMS * multiplier));
+		return Math.max(1, delay);
+	}
+
+	/**
+	 * Sleep for next delay, no later than deadline of scope.
+	 * @return Milliseconds slept.
+	 */
+	public long sleep(ExportScope scope) throws InterruptedException {
+		long delay = scope.limit(nextDelay());
+		Thread.sleep(delay);
+		return delay;
+	}
+
+	/**
+	 * Progress seen, poll quickly again.
+	 */
+	public void progress() {
+		currentMS = minMS;
+	}
+
+	public int getPollCount() {
+		return pollCount;
+	}
+}
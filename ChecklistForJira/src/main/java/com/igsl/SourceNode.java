@@ -0,0 +1,41 @@
+package com.igsl;
+
+/*
+	Node of Jira Data Center cluster in config.json:
+	{
+		"sourceScheme": "https",	// Optional, sourceScheme is used if omitted
+		"sourceHost": "[IP]:[Port]",
+		"concurrentContextCount": 10,	// Optional, concurrentContextCount is used if omitted
+		"checklistForJiraExportDir": "[Path of node's export/checklist folder]"	// Optional, checklistForJiraExportDir is used if omitted
+	}
+*/
+public class SourceNode {
+	private String sourceScheme;
+	private String sourceHost;
+	private int concurrentContextCount;
+	private String checklistForJiraExportDir;
+	public String getSourceScheme() {
+		return sourceScheme;
+	}
+	public void setSourceScheme(String sourceScheme) {
+		this.sourceScheme = sourceScheme;
+	}
+	public String getSourceHost() {
+		return sourceHost;
+	}
+	public void setSourceHost(String sourceHost) {
+		this.sourceHost = sourceHost;
+	}
+	public int getConcurrentContextCount() {
+		return concurrentContextCount;
+	}
+	public void setConcurrentContextCount(int concurrentContextCount) {
+		this.concurrentContextCount = concurrentContextCount;
+	}
+	public String getChecklistForJiraExportDir() {
+		return checklistForJiraExportDir;
+	}
+	public void setChecklistForJiraExportDir(String checklistForJiraExportDir) {
+		this.checklistForJiraExportDir = checklistForJiraExportDir;
+	}
+}
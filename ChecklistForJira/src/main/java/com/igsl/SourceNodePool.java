@@ -0,0 +1,196 @@
+package com.igsl;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Jira nodes export can be triggered on.
+ *
+ * Each node has its own export engine (and so its own login session), limit on running contexts and export directory.
+ * Without sourceNodes in config, sourceHost is the only node.
+ *
+ * Contexts are placed on the node with the lowest share of its limit in use.
+ * When all nodes are full, {@link #acquire()} waits.
+ */
+public class SourceNodePool implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final ObjectMapper OM = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+	public static class Node {
+		private Config conf;	// Config with node's host and export directory
+		private ExportEngine engine;
+		private Path exportDirectory;
+		private int limit;
+		private int running = 0;
+		private int started = 0;
+		public String getName() {
+			return conf.getSourceHost();
+		}
+		public Config getConf() {
+			return conf;
+		}
+		public ExportEngine getEngine() {
+			return engine;
+		}
+		public Path getExportDirectory() {
+			return exportDirectory;
+		}
+		/**
+		 * Same page on this node.
+		 */
+		public URL locate(URL url) throws Exception {
+			return ExportThread.createURI(conf, url.getFile());
+		}
+	}
+
+	private List<Node> nodes = new ArrayList<>();
+	private Path defaultExportDirectory;
+
+	public SourceNodePool(Config conf, String engineName) {
+		this.defaultExportDirectory = Paths.get(conf.getChecklistForJiraExportDir());
+		if (conf.getSourceNodes() == null || conf.getSourceNodes().size() == 0) {
+			Node node = new Node();
+			node.conf = conf;
+			node.engine = ExportEngine.create(conf, engineName);
+			node.exportDirectory = defaultExportDirectory;
+			node.limit = Math.max(1, conf.getConcurrentContextCount());
+			nodes.add(node);
+		} else {
+			for (SourceNode def : conf.getSourceNodes()) {
+				Config nodeConf = OM.convertValue(conf, Config.class);
+				if (def.getSourceScheme() != null) {
+					nodeConf.setSourceScheme(def.getSourceScheme());
+				}
+				nodeConf.setSourceHost(def.getSourceHost());
+				if (def.getChecklistForJiraExportDir() != null) {
+					nodeConf.setChecklistForJiraExportDir(def.getChecklistForJiraExportDir());
+				}
+				Node node = new Node();
+				node.conf = nodeConf;
+				node.engine = ExportEngine.create(nodeConf, engineName);
+				node.exportDirectory = Paths.get(nodeConf.getChecklistForJiraExportDir());
+				node.limit = Math.max(1, (def.getConcurrentContextCount() > 0)?
+						def.getConcurrentContextCount() : conf.getConcurrentContextCount());
+				nodes.add(node);
+				Log.info(LOGGER, "Source node [" + node.getName() + "] limit: " + node.limit +
+						" export directory: " + node.exportDirectory);
+			}
+		}
+	}
+
+	/**
+	 * Engine used to look up contexts. Configuration pages are the same on all nodes.
+	 */
+	public ExportEngine getDiscoveryEngine() {
+		return nodes.get(0).engine;
+	}
+
+	public List<Node> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Export directory of node whose host or directory is mentioned in text (journal detail).
+	 * checklistForJiraExportDir if not found.
+	 */
+	public Path getExportDirectory(String text) {
+		if (text != null && nodes.size() > 1) {
+			for (Node node : nodes) {
+				if (text.contains("://" + node.getName() + "/") ||
+					text.equals(node.exportDirectory.toString())) {
+					return node.exportDirectory;
+				}
+			}
+		}
+		return defaultExportDirectory;
+	}
+
+	/**
+	 * Export directories of all nodes, without duplicates.
+	 */
+	public List<Path> getExportDirectories() {
+		List<Path> result = new ArrayList<>();
+		for (Node node : nodes) {
+			if (!result.contains(node.exportDirectory)) {
+				result.add(node.exportDirectory);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Export directory containing GZ files of a context, or null if not found in any node's directory.
+	 */
+	public Path findExportDirectory(String fieldId, String contextId) {
+		for (Node node : nodes) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+					node.exportDirectory, "customfield_" + fieldId + "-" + contextId + "-*.gz")) {
+				if (stream.iterator().hasNext()) {
+					return node.exportDirectory;
+				}
+			} catch (IOException ioex) {
+				Log.warn(LOGGER, "Unable to list export directory [" + node.exportDirectory + "]: " + ioex.getMessage());
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reserve a slot on least loaded node, wait if all nodes are full.
+	 */
+	public synchronized Node acquire() throws InterruptedException {
+		while (true) {
+			Node best = null;
+			for (Node node : nodes) {
+				if (node.running < node.limit) {
+					if (best == null ||
+						(long) node.running * best.limit < (long) best.running * node.limit) {
+						best = node;
+					}
+				}
+			}
+			if (best != null) {
+				best.running++;
+				best.started++;
+				return best;
+			}
+			wait();
+		}
+	}
+
+	/**
+	 * No. of contexts running on node.
+	 */
+	public synchronized int getRunning(Node node) {
+		return node.running;
+	}
+
+	public synchronized void release(Node node) {
+		node.running--;
+		notifyAll();
+	}
+
+	@Override
+	public void close() {
+		for (Node node : nodes) {
+			node.engine.close();
+			if (nodes.size() > 1) {
+				Log.info(LOGGER, "Source node [" + node.getName() + "] contexts exported: " + node.started);
+			}
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package com.igsl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.igsl.mybatis.CustomField;
+
+/**
+ * Runs exportUsage on contexts as they are verified by triggerExport,
+ * instead of waiting for all exports to finish.
+ *
+ * Verified contexts are put on a queue of pipelineQueueSize.
+ * When the queue is full, collecting further results waits, exports already triggered are not affected.
+ * exportUsageThreadCount workers take contexts from the queue, parse their GZ files and record them.
+ *
+ * Rows are written in the order contexts are verified, so unlike exportUsage the output order can differ between runs.
+ */
+public class UsagePipeline implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	/**
+	 * Verified context.
+	 */
+	private static class Target {
+		private CustomField customField;
+		private String contextId;
+	}
+
+	// Tells worker to stop
+	private static final Target END = new Target();
+
+	private UsageWriter writer;
+	private SourceNodePool nodes;
+	private BlockingQueue<Target> queue;
+	private List<Thread> workers = new ArrayList<>();
+	// Fields with at least one context recorded
+	private Set<String> fieldIds = new TreeSet<>();
+	private AtomicInteger contextCount = new AtomicInteger();
+
+	/**
+	 * Open CSV outputs, record workflow templates and start workers.
+	 */
+	public UsagePipeline(Config conf, List<CustomField> fieldList, String wfFile, String catalogFile, SourceNodePool nodes) throws Exception {
+		this.writer = new UsageWriter(conf, fieldList, catalogFile);
+		this.nodes = nodes;
+		this.queue = new ArrayBlockingQueue<>(Math.max(1, conf.getPipelineQueueSize()));
+		writer.processWorkflows(wfFile);
+		int threadCount = Math.max(1, conf.getExportUsageThreadCount());
+		for (int i = 0; i < threadCount; i++) {
+			Thread t = new Thread(this::work, "UsagePipeline-" + (i + 1));
+			t.start();
+			workers.add(t);
+		}
+		Log.info(LOGGER, "Usage pipeline started with " + threadCount + " worker(s)");
+	}
+
+	/**
+	 * Queue verified contexts of result. Waits if queue is full.
+	 */
+	public void offer(ExportResult result) {
+		for (ExportResult.ResultItem item : result.getResultMap().values()) {
+			if (item.getFiles().size() == 0 || item.getCustomField() == null) {
+				continue;
+			}
+			Target target = new Target();
+			target.customField = item.getCustomField();
+			target.contextId = item.getContextId();
+			try {
+				queue.put(target);
+			} catch (InterruptedException iex) {
+				Log.error(LOGGER, "Usage pipeline interrupted", iex);
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void work() {
+		while (true) {
+			Target target;
+			try {
+				target = queue.take();
+			} catch (InterruptedException iex) {
+				break;
+			}
+			if (target == END) {
+				break;
+			}
+			String fieldId = target.customField.getFieldId();
+			String name = "customfield_" + fieldId + "-" + target.contextId;
+			try {
+				List<Path> files = listFiles(fieldId, target.contextId);
+				if (files.size() == 0) {
+					Log.error(LOGGER, "GZ files of " + name + " not found in export directory, context skipped");
+					continue;
+				}
+				List<GZSummary> summaries = writer.summarize(files);
+				writer.recordContext(fieldId, summaries);
+				synchronized (fieldIds) {
+					fieldIds.add(fieldId);
+				}
+				Log.info(LOGGER, "Usage recorded for " + name + ", " +
+						contextCount.incrementAndGet() + " context(s) so far");
+			} catch (Exception ex) {
+				Log.error(LOGGER, "Error recording usage for " + name, ex);
+			}
+		}
+	}
+
+	/**
+	 * GZ files of context sorted by chunk.
+	 */
+	private List<Path> listFiles(String fieldId, String contextId) throws IOException {
+		List<Path> result = new ArrayList<>();
+		Path dir = nodes.findExportDirectory(fieldId, contextId);
+		if (dir != null) {
+			try (DirectoryStream<Path> stream =
+					Files.newDirectoryStream(dir, "customfield_" + fieldId + "-" + contextId + "-*.gz")) {
+				stream.forEach(result::add);
+			}
+			result.sort(Comparator.comparing(ChecklistForJira::getGZChunk));
+		}
+		return result;
+	}
+
+	/**
+	 * Wait for queued contexts, record field usages and close CSV outputs.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			for (int i = 0; i < workers.size(); i++) {
+				queue.put(END);
+			}
+			for (Thread t : workers) {
+				t.join();
+			}
+		} catch (InterruptedException iex) {
+			// Contexts still queued are not recorded, fields already seen are
+			Log.error(LOGGER, "Interrupted waiting for usage pipeline", iex);
+			Thread.currentThread().interrupt();
+		}
+		try {
+			for (String fieldId : fieldIds) {
+				writer.recordField(fieldId);
+			}
+		} finally {
+			writer.close();
+		}
+		Log.info(LOGGER, "Usage pipeline recorded " + contextCount.get() + " context(s)");
+	}
+}
@@ -0,0 +1,222 @@
+package com.igsl;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.io.FileUtils;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonParser.Feature;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.igsl.json.ChecklistForJiraData;
+import com.igsl.mybatis.CustomField;
+import com.igsl.mybatis.DataMapper;
+import com.igsl.mybatis.Project;
+import com.igsl.mybatis.Source;
+import com.igsl.mybatis.Workflow;
+
+/**
+ * Writes ChecklistProject, ChecklistTemplate and ChecklistUsage CSV files.
+ *
+ * {@link #summarize(List)} can be called from multiple threads.
+ * Recording methods are synchronized, rows are written in the order they are called.
+ * Project list is written and GZ catalog saved on {@link #close()}.
+ */
+public class UsageWriter implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final SimpleDateFormat SDF = new SimpleDateFormat("yyyyMMdd-HHmmss");
+	private static final ObjectMapper OM = new ObjectMapper()
+			.enable(Feature.ALLOW_COMMENTS)
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+	private Config conf;
+	private Map<String, CustomField> fieldMap;
+	private Path extractDir;
+	private Path csvProject;
+	private Path csvTemplate;
+	private Path csvUsage;
+	private FileWriter fwProject;
+	private FileWriter fwTemplate;
+	private FileWriter fwUsage;
+	private CSVPrinter project;
+	private CSVPrinter template;
+	private CSVPrinter usage;
+	private ObjectReader reader = OM.readerFor(ChecklistForJiraData.class);
+	private GZCatalog catalog;
+	// Projects that uses Checklist for Jira
+	private Set<String> projectList = new HashSet<>();
+	private Set<String> templateNameList = new HashSet<>();
+
+	public UsageWriter(Config conf, List<CustomField> fieldList, String catalogFile) throws Exception {
+		this.conf = conf;
+		this.fieldMap = fieldList.stream().collect(
+				Collectors.toMap(CustomField::getFieldId, item -> item));
+		String timestamp;
+		synchronized (SDF) {
+			timestamp = SDF.format(new Date());
+		}
+		// Only extract to disk if streaming is disabled
+		this.extractDir = (conf.isGzStreaming()? null : Paths.get("GZ." + timestamp));
+		this.csvProject = Paths.get("ChecklistProject." + timestamp + ".csv");
+		this.csvTemplate = Paths.get("ChecklistTemplate." + timestamp + ".csv");
+		this.csvUsage = Paths.get("ChecklistUsage." + timestamp + ".csv");
+		CSVFormat fmtTemplate = CSV.getCSVWriteFormat(Arrays.asList(
+					"Template Source",
+					"Workflow Name",
+					"Transition Name",
+					"Transition ID",
+					"Initial Transition",
+					"Append",
+					"Field Name",
+					"Context Name",
+					"Template Full Name",
+					"Template Truncated Name",
+					"Template Content"
+				));
+		CSVFormat fmtUsage = CSV.getCSVWriteFormat(Arrays.asList(
+					"Source",
+					"Project Key",
+					"Issue Type(s)",
+					"Field Name",
+					"Context Name",
+					"Template Full Name",
+					"Template Empty"
+				));
+		CSVFormat fmtProject = CSV.getCSVWriteFormat(Arrays.asList(
+					"Project Key"
+				));
+		if (extractDir != null) {
+			Files.createDirectory(extractDir);
+		}
+		fwProject = new FileWriter(csvProject.toFile());
+		project = new CSVPrinter(fwProject, fmtProject);
+		fwTemplate = new FileWriter(csvTemplate.toFile());
+		template = new CSVPrinter(fwTemplate, fmtTemplate);
+		fwUsage = new FileWriter(csvUsage.toFile());
+		usage = new CSVPrinter(fwUsage, fmtUsage);
+		if (catalogFile != null) {
+			catalog = GZCatalog.load(Paths.get(catalogFile));
+		}
+	}
+
+	/**
+	 * Record templates in workflow post-functions, from file exported by exportWorkflow or from database.
+	 */
+	public synchronized void processWorkflows(String wfFile) throws Exception {
+		Log.info(LOGGER, "Processing workflows");
+		List<Workflow> workflows;
+		if (wfFile != null) {
+			// From file
+			Log.info(LOGGER, "Reading workflow from file: " + wfFile);
+			ObjectReader wfReader = OM.readerFor(new TypeReference<List<Workflow>>() {});
+			workflows = wfReader.readValue(Paths.get(wfFile).toFile());
+		} else {
+			// From DB
+			Log.info(LOGGER, "Reading workflow from database");
+			SqlSessionFactory factory = ChecklistForJira.setupMyBatis(conf);
+			try (SqlSession session = factory.openSession()) {
+				DataMapper mapper = session.getMapper(DataMapper.class);
+				workflows = mapper.getWorkflows();
+			}
+		}
+		for (Workflow workflow : workflows) {
+			try {
+				ChecklistForJira.processWorkflow(workflow, fieldMap, template, usage, projectList, templateNameList);
+			} catch (Exception ex) {
+				Log.error(LOGGER, "Error processing " + workflow.getWorkflowName(), ex);
+			}
+		}
+	}
+
+	/**
+	 * Parse GZ files of a context, in the order provided. Thread-safe.
+	 */
+	public List<GZSummary> summarize(List<Path> files) {
+		return ChecklistForJira.summarizeGZContext(reader, files, extractDir, conf, catalog);
+	}
+
+	/**
+	 * Record templates and usages of a context.
+	 */
+	public synchronized void recordContext(String customFieldId, List<GZSummary> summaries) {
+		String customFieldName = fieldMap.get(customFieldId).getFieldName();
+		ChecklistForJira.recordGZContext(
+				template, usage, fieldMap, projectList, templateNameList,
+				customFieldId, customFieldName, summaries);
+	}
+
+	/**
+	 * Record usage of custom field via screens and workflows.
+	 */
+	public synchronized void recordField(String customFieldId) throws IOException {
+		CustomField cf = fieldMap.get(customFieldId);
+		String fullName = cf.getFieldName();
+		Set<String> projectKeySet = new HashSet<>();
+		for (Source source : cf.getSourceList()) {
+			for (Project p : source.getProjectList()) {
+				projectKeySet.add(p.getProjectKey());
+				projectList.add(p.getProjectKey());
+				ChecklistForJira.recordTemplateUsage(
+						usage,
+						source.getSource(),
+						p.getProjectKey(),
+						p.getIssueTypeString(),
+						cf.getFieldName(),
+						"N/A",
+						"N/A",
+						"N/A");
+				Log.info(LOGGER,
+						"Template [" + fullName + "] is associated via workflow/screens with " +
+						p.getProjectKey() + " issue types [" + p.getIssueTypeString() + "]");
+			}
+		}
+		Log.info(LOGGER,
+				"Template [" + fullName + "] is associated via workflow/screen with " +
+				projectKeySet.size() + " project(s)");
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			if (catalog != null) {
+				catalog.save();
+			}
+			// Write project list
+			for (String pKey : projectList) {
+				project.printRecord(pKey);
+			}
+		} finally {
+			project.close();
+			fwProject.close();
+			template.close();
+			fwTemplate.close();
+			usage.close();
+			fwUsage.close();
+			if (extractDir != null) {
+				FileUtils.deleteDirectory(extractDir.toFile());
+			}
+		}
+		Log.info(LOGGER, "Checklist for Jira templates written to: " + csvTemplate.toString());
+		Log.info(LOGGER, "Template usage written to: " + csvUsage.toString());
+	}
+}
@@ -0,0 +1,25 @@
+package com.igsl.mybatis;
+
+public class ContextIssueCount {
+	private String fieldId;
+	private String contextId;	// Field configuration ID, i.e. fieldConfigId in Checklist for Jira export page
+	private long issueCount;
+	public String getFieldId() {
+		return fieldId;
+	}
+	public void setFieldId(String fieldId) {
+		this.fieldId = fieldId;
+	}
+	public String getContextId() {
+		return contextId;
+	}
+	public void setContextId(String contextId) {
+		this.contextId = contextId;
+	}
+	public long getIssueCount() {
+		return issueCount;
+	}
+	public void setIssueCount(long issueCount) {
+		this.issueCount = issueCount;
+	}
+}
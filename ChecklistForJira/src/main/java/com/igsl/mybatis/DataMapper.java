@@ -1,8 +1,15 @@
 package com.igsl.mybatis;
 
+import java.util.Date;
 import java.util.List;
 
+import org.apache.ibatis.annotations.Param;
+
 public interface DataMapper {
 	public List<CustomField> getCustomFieldUsage();
 	public List<Workflow> getWorkflows();
+	public List<ContextIssueCount> getContextIssueCounts();
+	public List<FieldContext> getChecklistContexts();
+	public Date getDatabaseTime();
+	public List<ExportJob> getExportJobs(@Param("contextIds") List<String> contextIds, @Param("since") Date since);
 }
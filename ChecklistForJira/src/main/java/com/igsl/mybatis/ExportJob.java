@@ -0,0 +1,52 @@
+package com.igsl.mybatis;
+
+import java.util.Date;
+
+/**
+ * Scheduled or finished run of Checklist for Jira export job.
+ * Job ID is [?]-[Context ID].
+ */
+public class ExportJob {
+	private String jobId;
+	private boolean scheduled;	// Still in clusteredjob, i.e. waiting or running
+	private String runOutcome;	// From rundetails: S = success, F = failed, A = aborted, U = unavailable
+	private Date startTime;
+	private long runDuration;
+	private String infoMessage;
+	public String getJobId() {
+		return jobId;
+	}
+	public void setJobId(String jobId) {
+		this.jobId = jobId;
+	}
+	public boolean isScheduled() {
+		return scheduled;
+	}
+	public void setScheduled(boolean scheduled) {
+		this.scheduled = scheduled;
+	}
+	public String getRunOutcome() {
+		return runOutcome;
+	}
+	public void setRunOutcome(String runOutcome) {
+		this.runOutcome = runOutcome;
+	}
+	public Date getStartTime() {
+		return startTime;
+	}
+	public void setStartTime(Date startTime) {
+		this.startTime = startTime;
+	}
+	public long getRunDuration() {
+		return runDuration;
+	}
+	public void setRunDuration(long runDuration) {
+		this.runDuration = runDuration;
+	}
+	public String getInfoMessage() {
+		return infoMessage;
+	}
+	public void setInfoMessage(String infoMessage) {
+		this.infoMessage = infoMessage;
+	}
+}
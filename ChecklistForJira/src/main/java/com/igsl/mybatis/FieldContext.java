@@ -0,0 +1,25 @@
+package com.igsl.mybatis;
+
+public class FieldContext {
+	private String fieldId;
+	private String fieldName;
+	private String contextId;	// Field configuration ID, i.e. fieldConfigId in Checklist for Jira export page
+	public String getFieldId() {
+		return fieldId;
+	}
+	public void setFieldId(String fieldId) {
+		this.fieldId = fieldId;
+	}
+	public String getFieldName() {
+		return fieldName;
+	}
+	public void setFieldName(String fieldName) {
+		this.fieldName = fieldName;
+	}
+	public String getContextId() {
+		return contextId;
+	}
+	public void setContextId(String contextId) {
+		this.contextId = contextId;
+	}
+}
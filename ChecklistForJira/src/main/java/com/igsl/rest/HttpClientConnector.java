@@ -0,0 +1,143 @@
+package com.igsl.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Configuration;
+
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.Statuses;
+
+/**
+ * Jersey connector sending requests with java.net.http.HttpClient.
+ *
+ * One HttpClient is shared by all requests, keeping connections alive in its pool
+ * and multiplexing requests over HTTP/2 when the server supports it.
+ * Connect timeout is taken from {@link ClientProperties#CONNECT_TIMEOUT} of the client,
+ * timeout of each request from {@link ClientProperties#READ_TIMEOUT} of the request.
+ * Request entity is buffered, response entity is streamed.
+ */
+public class HttpClientConnector implements Connector {
+
+	// Set by HttpClient itself
+	private static final TreeSet<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+	static {
+		RESTRICTED_HEADERS.addAll(Arrays.asList("Connection", "Content-Length", "Expect", "Host", "Upgrade"));
+	}
+
+	private HttpClient client;
+
+	public HttpClientConnector(Configuration config) {
+		HttpClient.Builder builder = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.NORMAL);
+		Object connectTimeout = config.getProperty(ClientProperties.CONNECT_TIMEOUT);
+		if (connectTimeout instanceof Number && ((Number) connectTimeout).longValue() > 0) {
+			builder.connectTimeout(Duration.ofMillis(((Number) connectTimeout).longValue()));
+		}
+		this.client = builder.build();
+	}
+
+	private HttpRequest toHttpRequest(ClientRequest request) {
+		HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+		if (request.hasEntity()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			request.setStreamProvider(contentLength -> out);
+			try {
+				request.writeEntity();
+			} catch (IOException ioex) {
+				throw new ProcessingException(ioex);
+			}
+			body = HttpRequest.BodyPublishers.ofByteArray(out.toByteArray());
+		}
+		HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri())
+				.method(request.getMethod(), body);
+		for (Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+			if (RESTRICTED_HEADERS.contains(header.getKey())) {
+				continue;
+			}
+			for (String value : header.getValue()) {
+				builder.header(header.getKey(), value);
+			}
+		}
+		int timeout = request.resolveProperty(ClientProperties.READ_TIMEOUT, 0);
+		if (timeout > 0) {
+			builder.timeout(Duration.ofMillis(timeout));
+		}
+		return builder.build();
+	}
+
+	private static ClientResponse toClientResponse(ClientRequest request, HttpResponse<InputStream> response) {
+		ClientResponse result = new ClientResponse(Statuses.from(response.statusCode()), request, response.uri());
+		for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+			if (header.getKey().startsWith(":")) {
+				// HTTP/2 pseudo header
+				continue;
+			}
+			result.headers(header.getKey(), header.getValue());
+		}
+		result.setEntityStream(response.body());
+		return result;
+	}
+
+	@Override
+	public ClientResponse apply(ClientRequest request) {
+		HttpRequest httpRequest = toHttpRequest(request);
+		try {
+			return toClientResponse(request, client.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream()));
+		} catch (IOException ioex) {
+			throw new ProcessingException(ioex);
+		} catch (InterruptedException iex) {
+			Thread.currentThread().interrupt();
+			throw new ProcessingException(iex);
+		}
+	}
+
+	@Override
+	public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+		HttpRequest httpRequest;
+		try {
+			httpRequest = toHttpRequest(request);
+		} catch (ProcessingException pex) {
+			callback.failure(pex);
+			return CompletableFuture.completedFuture(null);
+		}
+		return client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream())
+				.whenComplete((response, ex) -> {
+					if (ex != null) {
+						Throwable cause = (ex instanceof CompletionException && ex.getCause() != null)?
+								ex.getCause() : ex;
+						callback.failure(new ProcessingException(cause));
+					} else {
+						callback.response(toClientResponse(request, response));
+					}
+				});
+	}
+
+	@Override
+	public String getName() {
+		return "java.net.http " + client.version();
+	}
+
+	@Override
+	public void close() {
+		// HttpClient releases its connections when no longer referenced
+	}
+}
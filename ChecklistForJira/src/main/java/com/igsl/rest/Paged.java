@@ -1,12 +1,15 @@
 package com.igsl.rest;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.ws.rs.core.Response;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -29,6 +32,8 @@ public class Paged<T> extends Pagination<T> {
 	private Integer startAt = 0;
 	private Response response;
 	private List<T> values;
+	// Size of first page read, used as maxResults of remaining pages
+	private Integer pageSize;
 	
 	/**
 	 * Constructor.
@@ -118,6 +123,7 @@ public class Paged<T> extends Pagination<T> {
 		this.startAt = this.initialStartAt;
 		this.total = null;
 		this.values = null;
+		this.pageSize = null;
 	}
 
 	@Override
@@ -138,11 +144,63 @@ public class Paged<T> extends Pagination<T> {
 	public void setResponse(Response response, ObjectMapper om) 
 			throws JsonProcessingException, IllegalArgumentException, IOException {
 		this.response = response;
-		// Parse response
-		String jsonString = this.response.readEntity(String.class);		
-		JsonNode root = om.readTree(jsonString);
-		// Total
+		try (InputStream in = this.response.readEntity(InputStream.class)) {
+			parse(in, om);
+		}
+	}
+	
+	@Override
+	public void parse(InputStream in, ObjectMapper om) throws IOException {
 		total = null;
+		if (streaming) {
+			parseStream(in, om);
+		} else {
+			parseTree(in, om);
+		}
+		updateState();
+	}
+	
+	/**
+	 * Read total and values in one pass, binding each value as it is read.
+	 */
+	private void parseStream(InputStream in, ObjectMapper om) throws IOException {
+		boolean hasValuesProperty = (valuesParameterName != null && !valuesParameterName.isBlank());
+		boolean hasTotalProperty = (totalParameterName != null && !totalParameterName.isBlank());
+		try (JsonParser parser = om.getFactory().createParser(in)) {
+			JsonToken token = parser.nextToken();
+			if (!hasValuesProperty) {
+				// Root should be array of values
+				if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+					this.values = readValues(parser, om);
+				} else {
+					this.values = null;
+				}
+				return;
+			}
+			this.values = null;
+			if (token != JsonToken.START_OBJECT) {
+				return;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+				token = parser.nextToken();
+				if (hasTotalProperty && totalParameterName.equals(name)) {
+					if (token == JsonToken.VALUE_NUMBER_INT && 
+						parser.getNumberType() == JsonParser.NumberType.INT) {
+						total = parser.getIntValue();
+					}
+				} else if (valuesParameterName.equals(name)) {
+					this.values = readValues(parser, om);
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+	}
+	
+	private void parseTree(InputStream in, ObjectMapper om) throws IOException {
+		JsonNode root = readTree(in, om);
+		// Total
 		if (this.totalParameterName != null && !this.totalParameterName.isBlank()) {
 			JsonNode totalNode = root.get(totalParameterName);
 			if (totalNode != null && totalNode.isInt()) {
@@ -153,43 +211,29 @@ public class Paged<T> extends Pagination<T> {
 		if (valuesParameterName != null && !valuesParameterName.isBlank()) {
 			JsonNode valuesNode = root.get(valuesParameterName);
 			if (valuesNode != null) {
-				this.values = new ArrayList<>();
-				if (valuesNode.isArray()) {
-					// Array
-					for (JsonNode arrayItem : valuesNode) {
-						T item = om.treeToValue(arrayItem, dataClass);
-						this.values.add(item);
-					}
-				} else {
-					// Single item
-					T item = om.treeToValue(valuesNode, dataClass);
-					this.values.add(item);
-				}
+				this.values = treeToValues(valuesNode, om);
 	 		} else {
 	 			this.values = null;
 	 		}
 		} else {
 			// Root should be array of values
-			if (root.isArray()) {
-				this.values = new ArrayList<>();
-				for (JsonNode arrayItem : root) {
-					T item = om.treeToValue(arrayItem, dataClass);
-					this.values.add(item);
-				}
-			} else if (root.isObject()) {
-				// Single item
-				this.values = new ArrayList<>();
-				T item = om.treeToValue(root, dataClass);
-				this.values.add(item);
+			if (root.isArray() || root.isObject()) {
+				this.values = treeToValues(root, om);
 			} else {
 				this.values = null;
 			}
 		}
+	}
+	
+	private void updateState() {
 		// Modify startAt
 		int size = 0;
 		if (this.values != null) {
 			size = this.values.size();
 		}
+		if (this.pageSize == null) {
+			this.pageSize = size;
+		}
 		this.startAt += size;
 		// Has more
 		if (this.total != null) {
@@ -199,6 +243,38 @@ public class Paged<T> extends Pagination<T> {
 		}
 	}
 	
+	/**
+	 * Remaining pages of the same size as the first page, when total is known.
+	 * Offsets are fixed multiples of the page size, while one by one paging moves on by the no. of items returned. 
+	 * If a page comes back short (see {@link #isShort()}), later pages do not line up and must be discarded.
+	 */
+	@Override
+	public List<Paged<T>> getRemainingPages() {
+		List<Paged<T>> result = new ArrayList<>();
+		if (this.hasMore && this.total != null && this.pageSize != null && this.pageSize > 0 && 
+			this.startAtParameterName != null && !this.startAtParameterName.isBlank()) {
+			for (int offset = this.startAt; offset < this.total; offset += this.pageSize) {
+				Paged<T> page = new Paged<>(dataClass)
+						.startAtParameter(startAtParameterName)
+						.startAt(offset)
+						.maxResultsProperty(maxResultsParameterName)
+						.maxResults(pageSize)
+						.totalProperty(totalParameterName)
+						.valuesProperty(valuesParameterName);
+				page.pageSize = this.pageSize;
+				page.streaming = this.streaming;
+				result.add(page);
+			}
+		}
+		return result;
+	}
+	
+	@Override
+	public boolean isShort() {
+		int size = (this.values == null)? 0 : this.values.size();
+		return this.hasMore && this.pageSize != null && size < this.pageSize;
+	}
+	
 	@Override
 	public boolean hasMore() {
 		return this.hasMore;
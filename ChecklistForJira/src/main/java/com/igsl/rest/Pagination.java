@@ -1,16 +1,25 @@
 package com.igsl.rest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.ws.rs.core.Response;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public abstract class Pagination<T> {
 	protected Class<T> dataClass;
+	// Bind items directly from the response stream, instead of reading the whole response into a JsonNode tree first
+	protected boolean streaming = true;
 	
 	/**
 	 * Constructor.
@@ -20,6 +29,16 @@ public abstract class Pagination<T> {
 		this.dataClass = dataClass;
 	}
 	
+	/**
+	 * Set parsing mode. Default is true.
+	 * @param streaming If true, items are bound from the response stream with JsonParser. 
+	 * If false, response is read as String, parsed into JsonNode and then bound.
+	 */
+	public Pagination<T> streaming(boolean streaming) {
+		this.streaming = streaming;
+		return this;
+	}
+	
 	/**
 	 * Reset to internal state to read first page.
 	 */
@@ -41,6 +60,52 @@ public abstract class Pagination<T> {
 	public abstract void setResponse(Response response, ObjectMapper om) 
 			throws JsonProcessingException, JsonMappingException, IOException;
 	
+	/**
+	 * Parse response body. Called by setResponse(), can also be used without a Response.
+	 * @param in Response body, not closed.
+	 * @param om ObjectMapper.
+	 */
+	public abstract void parse(InputStream in, ObjectMapper om) throws IOException;
+	
+	/**
+	 * Read response body as JsonNode tree.
+	 */
+	protected static JsonNode readTree(InputStream in, ObjectMapper om) throws IOException {
+		String jsonString = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		return om.readTree(jsonString);
+	}
+	
+	/**
+	 * Bind array of items or single item in JsonNode.
+	 */
+	protected List<T> treeToValues(JsonNode node, ObjectMapper om) throws IOException {
+		List<T> values = new ArrayList<>();
+		if (node.isArray()) {
+			for (JsonNode item : node) {
+				values.add(om.treeToValue(item, dataClass));
+			}
+		} else {
+			values.add(om.treeToValue(node, dataClass));
+		}
+		return values;
+	}
+	
+	/**
+	 * Bind array of items or single item at current token of parser.
+	 * Parser is left at the last token of the value.
+	 */
+	protected List<T> readValues(JsonParser parser, ObjectMapper om) throws IOException {
+		List<T> values = new ArrayList<>();
+		if (parser.currentToken() == JsonToken.START_ARRAY) {
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				values.add(om.readValue(parser, dataClass));
+			}
+		} else {
+			values.add(om.readValue(parser, dataClass));
+		}
+		return values;
+	}
+	
 	/**
 	 * Tells if there may be more pages of results.
 	 */
@@ -50,4 +115,22 @@ public abstract class Pagination<T> {
 	 * Retrieve list of items.
 	 */
 	public abstract List<T> getObjects();
+	
+	/**
+	 * After a page is read, get one Pagination for each remaining page, in order, 
+	 * so they can be requested in parallel.
+	 * Empty if remaining pages are not known in advance. 
+	 */
+	public List<? extends Pagination<T>> getRemainingPages() {
+		return Collections.emptyList();
+	}
+	
+	/**
+	 * After a page from {@link #getRemainingPages()} is read, tells if it returned fewer items than requested 
+	 * while more remain. Later pages were requested at offsets that no longer match, 
+	 * so paging must continue one by one from this page.
+	 */
+	public boolean isShort() {
+		return false;
+	}
 }
\ No newline at end of file
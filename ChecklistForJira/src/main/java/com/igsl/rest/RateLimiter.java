@@ -0,0 +1,178 @@
+package com.igsl.rest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.igsl.Log;
+
+/**
+ * Token bucket limiting REST API calls to a host, one instance per host.
+ *
+ * Implemented as GCRA (generic cell rate algorithm): the only state is the theoretical arrival time
+ * of the next call, updated with compare-and-set, so callers never take a lock.
+ * Up to maxCall calls are allowed at once, then one every period / maxCall.
+ * A caller over the limit reserves the next slot and is parked until it is due.
+ * Without a limit, callers are only held until a penalty from {@link #penalize(long)} has passed.
+ */
+public class RateLimiter {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final Map<String, RateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+	private final String host;
+	private volatile long maxCall;
+	private volatile long period;
+	private volatile long interval;	// Nanoseconds between calls, 0 for no limit
+	private volatile long tolerance;	// Nanoseconds of burst allowed
+	private final AtomicLong tat;	// Theoretical arrival time, System.nanoTime()
+
+	// Metrics
+	private final LongAdder callCount = new LongAdder();
+	private final LongAdder waitCount = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private final LongAdder penaltyCount = new LongAdder();
+
+	private RateLimiter(String host, long maxCall, long period) {
+		this.host = host;
+		this.tat = new AtomicLong(System.nanoTime());
+		setRate(maxCall, period);
+	}
+
+	/**
+	 * Get limiter of host, created if it does not exist. Rate is changed if different.
+	 * @param maxCall Max. no. of calls per period, 0 for no limit.
+	 * @param period Milliseconds in one period.
+	 */
+	public static RateLimiter get(String host, long maxCall, long period) {
+		RateLimiter limiter = LIMITERS.computeIfAbsent(host, h -> new RateLimiter(h, maxCall, period));
+		if (limiter.maxCall != maxCall || limiter.period != period) {
+			limiter.setRate(maxCall, period);
+		}
+		return limiter;
+	}
+
+	/**
+	 * Change rate of limiter.
+	 * @param maxCall Max. no. of calls per period, 0 for no limit.
+	 * @param period Milliseconds in one period.
+	 */
+	public void setRate(long maxCall, long period) {
+		this.maxCall = maxCall;
+		this.period = period;
+		if (maxCall <= 0 || period <= 0) {
+			this.interval = 0;
+			this.tolerance = 0;
+		} else {
+			long interval = Math.max(1, TimeUnit.MILLISECONDS.toNanos(period) / maxCall);
+			this.interval = interval;
+			this.tolerance = interval * (maxCall - 1);
+		}
+	}
+
+	/**
+	 * Wait until a call is allowed.
+	 * @throws InterruptedException If interrupted while parked. The slot reserved is not returned.
+	 */
+	public void acquire() throws InterruptedException {
+		callCount.increment();
+		long interval = this.interval;
+		long now;
+		long due;
+		if (interval == 0) {
+			// No limit, but calls are still held after penalize()
+			now = System.nanoTime();
+			due = tat.get();
+		} else {
+			while (true) {
+				now = System.nanoTime();
+				long current = tat.get();
+				long start = (current - now > 0)? current : now;
+				if (tat.compareAndSet(current, start + interval)) {
+					due = start - tolerance;
+					break;
+				}
+			}
+		}
+		long wait = due - now;
+		if (wait <= 0) {
+			return;
+		}
+		waitCount.increment();
+		waitNanos.add(wait);
+		maxWaitNanos.accumulateAndGet(wait, Math::max);
+		long remaining;
+		while ((remaining = due - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(this, remaining);
+			if (Thread.interrupted()) {
+				throw new InterruptedException("Rate limit wait for " + host + " interrupted");
+			}
+		}
+	}
+
+	/**
+	 * Hold all calls to host until delay has passed, e.g. after HTTP 429.
+	 * @param delayMS Milliseconds from now.
+	 */
+	public void penalize(long delayMS) {
+		penaltyCount.increment();
+		// Next call is due when theoretical arrival time - tolerance is reached
+		long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMS) + tolerance;
+		tat.accumulateAndGet(until, (current, target) -> (target - current > 0)? target : current);
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public long getCallCount() {
+		return callCount.sum();
+	}
+
+	public long getWaitCount() {
+		return waitCount.sum();
+	}
+
+	public long getPenaltyCount() {
+		return penaltyCount.sum();
+	}
+
+	public long getWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+	}
+
+	public long getMaxWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+	}
+
+	@Override
+	public String toString() {
+		long calls = getCallCount();
+		long waits = getWaitCount();
+		return "Rate limit of " + host + ": " +
+				calls + " call(s), " +
+				waits + " waited, " +
+				"total wait: " + getWaitMillis() + " ms, " +
+				"average wait: " + ((waits == 0)? 0 : getWaitMillis() / waits) + " ms, " +
+				"max. wait: " + getMaxWaitMillis() + " ms, " +
+				"slowed down by server: " + getPenaltyCount() + " time(s)";
+	}
+
+	/**
+	 * Log metrics of all hosts called.
+	 */
+	public static void logStats() {
+		for (RateLimiter limiter : LIMITERS.values()) {
+			if (limiter.getCallCount() > 0) {
+				Log.info(LOGGER, limiter.toString());
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.igsl.rest;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
+import com.igsl.Config;
+import com.igsl.Log;
+
+/**
+ * The javax.ws.rs.Client shared by all REST API calls.
+ * 
+ * Client is thread-safe. Requests are sent by {@link HttpClientConnector}, 
+ * which keeps connections alive and multiplexes requests over HTTP/2.
+ * Jackson provider is registered once when the client is created.
+ */
+public class RestClient {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	private static final JacksonJsonProvider JACKSON_JSON_PROVIDER = 
+			new JacksonJaxbJsonProvider()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+			.configure(SerializationFeature.INDENT_OUTPUT, true);
+	
+	private static Client client;
+	
+	/**
+	 * Create shared client using restConnectTimeoutMS, replacing existing one.
+	 */
+	public static synchronized void init(Config conf) {
+		close();
+		client = create(conf.getRestConnectTimeoutMS());
+		Log.info(LOGGER, "REST client initialized, connect timeout: " + conf.getRestConnectTimeoutMS() + " ms");
+	}
+	
+	private static Client create(long connectTimeout) {
+		ClientConfig configuration = new ClientConfig()
+				.connectorProvider((c, config) -> new HttpClientConnector(config))
+				.property(ClientProperties.CONNECT_TIMEOUT, (int) connectTimeout)
+				.register(JACKSON_JSON_PROVIDER);
+		return ClientBuilder.newClient(configuration);
+	}
+	
+	/**
+	 * Get shared client, created with default settings if {@link #init(Config)} is not called.
+	 */
+	public static synchronized Client get() {
+		if (client == null) {
+			client = create(Config.DEFAULT_REST_CONNECT_TIMEOUT_MS);
+		}
+		return client;
+	}
+	
+	public static synchronized void close() {
+		if (client != null) {
+			client.close();
+			client = null;
+		}
+	}
+}
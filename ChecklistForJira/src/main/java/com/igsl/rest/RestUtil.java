@@ -8,10 +8,13 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import javax.net.ssl.SSLHandshakeException;
@@ -30,13 +33,12 @@ import javax.ws.rs.core.Response.Status;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.glassfish.jersey.client.ClientProperties;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
-import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
 import com.igsl.Config;
 import com.igsl.Log;
 
@@ -50,12 +52,14 @@ public class RestUtil<T> {
 		return dataClass;
 	}
 	
-	// Rate limit
-	private static Object LOCK = new Object();
-	private static long maxCall = 100;	// No. of calls per period
-	private static long period = 1000;	// ms
-	private static Date lastCheck = null;
-	private static Float allowance = null;
+	// Rate limit, shared by all instances calling the same host
+	private static long defaultMaxCall = 100;	// No. of calls per period
+	private static long defaultPeriod = 1000;	// ms
+	private long maxCall = defaultMaxCall;
+	private long period = defaultPeriod;
+	
+	// Timeout of each request in ms, 0 for none
+	private long timeout = Config.DEFAULT_REST_TIMEOUT_MS;
 	
 	// Thread wait
 	private long sleep = 1000;
@@ -72,10 +76,6 @@ public class RestUtil<T> {
 			.enable(SerializationFeature.INDENT_OUTPUT)
 			.enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
 			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
-	private static final JacksonJsonProvider JACKSON_JSON_PROVIDER = 
-			new JacksonJaxbJsonProvider()
-			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-			.configure(SerializationFeature.INDENT_OUTPUT, true);
 
 	// URL
 	private String scheme = DEFAULT_SCHEME;
@@ -109,6 +109,11 @@ public class RestUtil<T> {
 				SocketException.class,
 				SSLHandshakeException.class
 			); 
+	// Retry POST/PUT on exception, request may have been processed already
+	private boolean retryUnsafeMethods = false;
+	// Delay before retry
+	private RetryPolicy retryPolicy = new RetryPolicy(
+			Config.DEFAULT_RETRY_MIN_MS, Config.DEFAULT_RETRY_MAX_MS, Config.DEFAULT_RETRY_JITTER);
 	
 	// Status
 	private boolean bitwiseStatus = true;
@@ -116,6 +121,15 @@ public class RestUtil<T> {
 	
 	// Paging
 	private Pagination<T> pagination;
+	// No. of pages requested at the same time when remaining pages are known
+	private int pageThreadCount = 1;
+	
+	/**
+	 * ObjectMapper used to parse responses.
+	 */
+	public static ObjectMapper getObjectMapper() {
+		return OM;
+	}
 	
 	/**
 	 * Create instance.
@@ -140,6 +154,10 @@ public class RestUtil<T> {
 	 * - host
 	 * - authenticate
 	 * - sleep
+	 * - rate limit
+	 * - retry
+	 * - timeout
+	 * - parallel pages
 	 * @param config
 	 * @throws UnsupportedEncodingException 
 	 * @throws URISyntaxException 
@@ -149,12 +167,22 @@ public class RestUtil<T> {
 		if (cloud) {
 			return this
 					.sleep(THREAD_WAIT)
+					.rateLimit(config.getTargetRateLimit(), config.getRateLimitPeriodMS())
+					.retry(config.getRetryMaxCount() != 0, config.getRetryMaxCount())
+					.retryPolicy(RetryPolicy.create(config))
+					.timeout(config.getRestTimeoutMS())
+					.parallelPages(config.getRestPageThreadCount())
 					.scheme(config.getTargetScheme())
 					.host(config.getTargetHost())
 					.authenticate(config.getTargetUser(), config.getTargetToken());
 		} else {
 			return this
 					.sleep(THREAD_WAIT)
+					.rateLimit(config.getSourceRateLimit(), config.getRateLimitPeriodMS())
+					.retry(config.getRetryMaxCount() != 0, config.getRetryMaxCount())
+					.retryPolicy(RetryPolicy.create(config))
+					.timeout(config.getRestTimeoutMS())
+					.parallelPages(config.getRestPageThreadCount())
 					.scheme(config.getSourceScheme())
 					.host(config.getSourceHost())
 					.authenticate(config.getSourceUser(), config.getSourcePassword());
@@ -169,6 +197,25 @@ public class RestUtil<T> {
 		return this;
 	}
 	
+	/**
+	 * Set timeout of each request. 0 for none.
+	 */
+	public RestUtil<T> timeout(long timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+	
+	/**
+	 * Set no. of pages requested at the same time.
+	 * After the first page, if the pagination knows the remaining pages (e.g. {@link Paged} with total), 
+	 * they are requested in parallel, within the rate limit, and combined in order. 
+	 * 1 to request pages one by one.
+	 */
+	public RestUtil<T> parallelPages(int pageThreadCount) {
+		this.pageThreadCount = Math.max(1, pageThreadCount);
+		return this;
+	}
+	
 	/**
 	 * Set scheme. Default is {@value #DEFAULT_SCHEME}.
 	 */
@@ -321,13 +368,24 @@ public class RestUtil<T> {
 	}
 	
 	/**
-	 * Control the max. rate for REST API calls. 
+	 * Control the default max. rate for REST API calls, used by instances created afterwards. 
 	 * @param maxCall Max. no. of calls per period.
 	 * @param period Milliseconds in one period.
 	 */
 	public static void throttle(long maxCall, long period) {
-		RestUtil.maxCall = maxCall;
-		RestUtil.period = period;
+		RestUtil.defaultMaxCall = maxCall;
+		RestUtil.defaultPeriod = period;
+	}
+	
+	/**
+	 * Set max. rate for REST API calls to host. The limit is shared by all instances calling the same host. 
+	 * @param maxCall Max. no. of calls per period, 0 for no limit.
+	 * @param period Milliseconds in one period.
+	 */
+	public RestUtil<T> rateLimit(long maxCall, long period) {
+		this.maxCall = maxCall;
+		this.period = period;
+		return this;
 	}
 	
 	/**
@@ -341,6 +399,24 @@ public class RestUtil<T> {
 		return this;
 	}
 	
+	/**
+	 * Set delay before retry. Default uses {@link Config} defaults.
+	 */
+	public RestUtil<T> retryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+		return this;
+	}
+	
+	/**
+	 * Allow retrying POST and PUT when an exception occurs. 
+	 * Default is false, as the server may have processed the request before the response was lost.
+	 * Retry on status (e.g. HTTP 429) is not affected.
+	 */
+	public RestUtil<T> retryUnsafeMethods(boolean retryUnsafeMethods) {
+		this.retryUnsafeMethods = retryUnsafeMethods;
+		return this;
+	}
+	
 	/**
 	 * Configure list of exceptions that can be retried.
 	 * Default is SocketException.class and SSLHandshakeException.class, 
@@ -419,39 +495,14 @@ public class RestUtil<T> {
 		return this;
 	}
 	
-	private void rateCheck() {
-		boolean requestGranted = false;
-		while (!requestGranted) {
-			synchronized(LOCK) {
-				Date now = new Date();
-				if (lastCheck == null) {
-					lastCheck = now;
-				}
-				float timePassed = now.getTime() - lastCheck.getTime();
-				lastCheck = now;
-				if (allowance == null) {
-					allowance = (float) maxCall;
-				} else {
-					allowance += timePassed / period * maxCall;
-				}
-				if (allowance >= maxCall) {
-					allowance = (float) maxCall;
-				}
-				if (allowance >= 1) {
-					requestGranted = true;
-					allowance -= 1;
-				}
-				//Log.info(LOGGER, "allowance: " + allowance);
-			}
-			if (!requestGranted) {
-				//Log.info(LOGGER, "Waiting for rate limit");
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e) {
-					Log.error(LOGGER, "Rate sleep interrupted", e);
-				}
-			}
-		}
+	/**
+	 * Repeating the method has the same effect as calling it once.
+	 */
+	private static boolean isIdempotent(String method) {
+		return HttpMethod.GET.equals(method) || 
+				HttpMethod.HEAD.equals(method) || 
+				HttpMethod.OPTIONS.equals(method) || 
+				HttpMethod.DELETE.equals(method);
 	}
 	
 	/**
@@ -461,31 +512,18 @@ public class RestUtil<T> {
 	 */
 	public Response request() throws Exception {
 		Response response = null;
-		Client client = null;
+		Client client = RestClient.get();
 		int retryCount = 0;
 		boolean doRetry = false;
+		RateLimiter limiter = RateLimiter.get(host, maxCall, period);
 		do {
 			doRetry = false;
+			boolean canRetry = allowRetry && (maxRetryCount == -1 || retryCount < maxRetryCount);
+			long retryDelay = 0;
 			try {
 				// Check rate of API calls
 				//Log.info(LOGGER, "Rate check");
-				rateCheck();
-				// Get client from pool
-				//Log.info(LOGGER, "ClientPool check");
-				while (client == null) {
-					client = ClientPool.get();
-					if (client == null) {
-						//Log.info(LOGGER, "Waiting for client pool");
-						try {
-							Thread.sleep(100);
-						} catch (InterruptedException e) {
-							Log.error(LOGGER, "Client pool sleep interrupted", e);
-						}
-					} else {
-						//Log.info(LOGGER, "Client received");
-					}
-				}
-				client.register(JACKSON_JSON_PROVIDER);
+				limiter.acquire();
 				String finalPath = this.path;
 				for (Map.Entry<String, String> entry : pathTemplates.entrySet()) {
 					finalPath = finalPath.replaceAll(
@@ -502,6 +540,9 @@ public class RestUtil<T> {
 					}
 				}
 				Builder builder = target.request();
+				if (timeout > 0) {
+					builder = builder.property(ClientProperties.READ_TIMEOUT, (int) timeout);
+				}
 				MultivaluedMap<String, Object> finalHeaders = new MultivaluedHashMap<>();
 				if (headers != null) {
 					finalHeaders.putAll(headers);
@@ -556,10 +597,18 @@ public class RestUtil<T> {
 					for (int status : retryStatusList) {
 						if ((bitwiseRetryStatus && status == respStatus) || 
 							(!bitwiseRetryStatus && (status & respStatus) == status)) {
-							if (maxRetryCount == -1 || 
-								retryCount <= maxRetryCount) {
+							if (canRetry) {
 								doRetry = true;
-								Log.warn(LOGGER, "Retrying due to status: " + respStatus);
+								retryDelay = retryPolicy.getDelay(retryCount, response);
+								Log.warn(LOGGER, "Retrying due to status: " + respStatus + 
+										" in " + retryDelay + " ms");
+								if (respStatus == RetryPolicy.STATUS_TOO_MANY_REQUESTS || 
+									RetryPolicy.getServerDelay(response) >= 0) {
+									// Slow down all threads calling the host, retry waits in rate limiter
+									limiter.penalize(retryDelay);
+									retryDelay = 0;
+								}
+								response.close();
 								break;
 							}
 						} 
@@ -567,6 +616,14 @@ public class RestUtil<T> {
 				}
 				// If not retry, check result
 				if (!doRetry) {
+					if (RetryPolicy.isExhausted(response)) {
+						// Rate limit reached, hold further calls until it resets
+						long delay = RetryPolicy.getServerDelay(response);
+						if (delay > 0) {
+							Log.warn(LOGGER, "Rate limit of " + host + " exhausted, waiting " + delay + " ms");
+							limiter.penalize(delay);
+						}
+					}
 					// Check status if statusList is provided
 					if (statusList != null && statusList.size() != 0) {
 						boolean statusValid = false;
@@ -600,10 +657,11 @@ public class RestUtil<T> {
 				if (retryExceptionList != null) {
 					for (Class<? extends Throwable> cls : retryExceptionList) {
 						if (cls.isAssignableFrom(t.getClass())) {
-							if (maxRetryCount == -1 || 
-								retryCount <= maxRetryCount) {
+							if (canRetry && (retryUnsafeMethods || isIdempotent(method))) {
 								doRetry = true;
-								Log.info(LOGGER, "Retrying due to exception: " + t.getClass());
+								retryDelay = retryPolicy.getDelay(retryCount, null);
+								Log.info(LOGGER, "Retrying due to exception: " + t.getClass() + 
+										" in " + retryDelay + " ms");
 								break;
 							} else {
 								throw ex;
@@ -618,26 +676,15 @@ public class RestUtil<T> {
 					// No retrying, throw exception
 					throw ex;
 				}
-			} finally {
-				ClientPool.release(client);
-				client = null;
-				//Log.info(LOGGER, "Client returned to pool");
 			}
 			if (doRetry) {
 				retryCount++;
-				// Put a slight delay before retrying
-				try {
-					Log.info(LOGGER, "Waiting before retry");
-					Thread.sleep(1000);
-				} catch (InterruptedException iex) {
-					Log.error(LOGGER, "Retry sleep interrutped", iex);
+				// Wait before retrying
+				if (retryDelay > 0) {
+					Thread.sleep(retryDelay);
 				}
-				// TODO Get delay from headers
-				// Retry-After and X-RateLimit-Reset
 			}
-		} while (	allowRetry && 
-					(maxRetryCount == -1 || retryCount <= maxRetryCount) && 
-					doRetry); 
+		} while (doRetry); 
 		return response;
 	}
 	
@@ -672,18 +719,116 @@ public class RestUtil<T> {
 		}
 		this.pagination.reset();
 		List<T> result = new ArrayList<>();
+		Pagination<T> current = this.pagination;
+		boolean parallel = (pageThreadCount > 1);
 		while (true) {
-			this.pagination.setup(this);
+			current.setup(this);
 			Response response = request();
-			this.pagination.setResponse(response, OM);
-			List<T> list = this.pagination.getObjects();
+			current.setResponse(response, OM);
+			List<T> list = current.getObjects();
 			if (list != null) {
 				result.addAll(list);
 			}
-			if (!this.pagination.hasMore()) {
+			if (!current.hasMore()) {
 				break;
 			}
+			if (parallel) {
+				List<? extends Pagination<T>> pages = current.getRemainingPages();
+				if (pages.size() > 0) {
+					// Continue one by one if more items appeared meanwhile, or a page came back short
+					current = requestPages(pages, result);
+					if (current.isShort()) {
+						Log.debug(LOGGER, "Page returned fewer items than requested, continue one by one");
+						parallel = false;
+					}
+					if (!current.hasMore()) {
+						break;
+					}
+				}
+			}
 		}
 		return result;
 	}
+	
+	/**
+	 * Request pages in parallel, each with a copy of this instance.
+	 * Items are added to result in page order, up to the first page that comes back short.
+	 * @return Last page added to result.
+	 */
+	private Pagination<T> requestPages(List<? extends Pagination<T>> pages, List<T> result) throws Exception {
+		Log.debug(LOGGER, "Requesting " + pages.size() + " page(s) with " + pageThreadCount + " thread(s)");
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(pageThreadCount, pages.size()), 
+				r -> {
+					Thread t = new Thread(r, "RestUtil-Page");
+					t.setDaemon(true);
+					return t;
+				});
+		try {
+			List<Future<List<T>>> futures = new ArrayList<>();
+			for (Pagination<T> page : pages) {
+				RestUtil<T> util = copy();
+				futures.add(executor.submit(() -> {
+					page.setup(util);
+					Response response = util.request();
+					page.setResponse(response, OM);
+					return page.getObjects();
+				}));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				List<T> list;
+				try {
+					list = futures.get(i).get();
+				} catch (ExecutionException eex) {
+					if (eex.getCause() instanceof Exception) {
+						throw (Exception) eex.getCause();
+					}
+					throw eex;
+				}
+				if (list != null) {
+					result.addAll(list);
+				}
+				if (pages.get(i).isShort()) {
+					// Later pages were requested at offsets that skip items, let them finish and discard them
+					executor.shutdown();
+					return pages.get(i);
+				}
+			}
+			return pages.get(pages.size() - 1);
+		} finally {
+			if (!executor.isShutdown()) {
+				executor.shutdownNow();
+			}
+		}
+	}
+	
+	/**
+	 * Copy of request settings, for requesting pages in parallel.
+	 */
+	private RestUtil<T> copy() {
+		RestUtil<T> util = new RestUtil<>(dataClass);
+		util.maxCall = maxCall;
+		util.period = period;
+		util.timeout = timeout;
+		util.sleep = sleep;
+		util.scheme = scheme;
+		util.host = host;
+		util.path = path;
+		util.pathTemplates = new HashMap<>(pathTemplates);
+		util.method = method;
+		util.headers = new MultivaluedHashMap<>(headers);
+		util.authHeader = authHeader;
+		util.query = new HashMap<>(query);
+		util.payload = payload;
+		util.allowRetry = allowRetry;
+		util.maxRetryCount = maxRetryCount;
+		util.bitwiseRetryStatus = bitwiseRetryStatus;
+		util.retryStatusList = retryStatusList;
+		util.retryExceptionList = retryExceptionList;
+		util.retryUnsafeMethods = retryUnsafeMethods;
+		util.retryPolicy = retryPolicy;
+		util.bitwiseStatus = bitwiseStatus;
+		util.statusList = statusList;
+		return util;
+	}
 }
@@ -0,0 +1,149 @@
+package com.igsl.rest;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.ws.rs.core.Response;
+
+import com.igsl.Config;
+
+/**
+ * Delay before retrying a REST API call.
+ *
+ * Delay given by the server is used if present: Retry-After (seconds or HTTP date),
+ * or X-RateLimit-Reset (ISO date, epoch seconds or seconds) when the response is HTTP 429 or X-RateLimit-Remaining is 0.
+ * Otherwise the delay starts at the minimum and doubles with each retry, up to the maximum.
+ * Each delay is reduced by a random fraction (jitter), so threads failing together do not retry in step.
+ * A random fraction of the minimum is added to delays from the server for the same reason.
+ *
+ * Thread-safe.
+ */
+public class RetryPolicy {
+
+	public static final int STATUS_TOO_MANY_REQUESTS = 429;
+	public static final String HEADER_RETRY_AFTER = "Retry-After";
+	public static final String HEADER_RATE_LIMIT_RESET = "X-RateLimit-Reset";
+	public static final String HEADER_RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+
+	// Numeric X-RateLimit-Reset larger than this is epoch seconds, otherwise seconds from now
+	private static final long EPOCH_SECONDS_THRESHOLD = 1000000000L;
+
+	private long minMS;
+	private long maxMS;
+	private double jitter;
+
+	public RetryPolicy(long minMS, long maxMS, double jitter) {
+		this.minMS = Math.max(1, minMS);
+		this.maxMS = Math.max(this.minMS, maxMS);
+		this.jitter = Math.min(1, Math.max(0, jitter));
+	}
+
+	public static RetryPolicy create(Config conf) {
+		return new RetryPolicy(conf.getRetryMinMS(), conf.getRetryMaxMS(), conf.getRetryJitter());
+	}
+
+	/**
+	 * Get delay before retry.
+	 * @param retryCount No. of retries done so far, starting from 0.
+	 * @param response Response, null if call failed with an exception.
+	 * @return Milliseconds.
+	 */
+	public long getDelay(int retryCount, Response response) {
+		long serverDelay = getServerDelay(response);
+		if (serverDelay >= 0) {
+			return serverDelay + (long) (minMS * jitter * ThreadLocalRandom.current().nextDouble());
+		}
+		long delay = minMS;
+		for (int i = 0; i < retryCount && delay < maxMS; i++) {
+			delay *= 2;
+		}
+		delay = Math.min(maxMS, delay);
+		if (jitter > 0) {
+			delay -= (long) (delay * jitter * ThreadLocalRandom.current().nextDouble());
+		}
+		return Math.max(1, delay);
+	}
+
+	/**
+	 * Get delay given by server in response headers.
+	 * @return Milliseconds, -1 if not given.
+	 */
+	public static long getServerDelay(Response response) {
+		if (response == null) {
+			return -1;
+		}
+		long delay = parseRetryAfter(response.getHeaderString(HEADER_RETRY_AFTER));
+		if (delay >= 0) {
+			return delay;
+		}
+		if (response.getStatus() == STATUS_TOO_MANY_REQUESTS || isExhausted(response)) {
+			return parseReset(response.getHeaderString(HEADER_RATE_LIMIT_RESET));
+		}
+		return -1;
+	}
+
+	/**
+	 * X-RateLimit-Remaining is 0.
+	 */
+	public static boolean isExhausted(Response response) {
+		String remaining = response.getHeaderString(HEADER_RATE_LIMIT_REMAINING);
+		if (remaining == null) {
+			return false;
+		}
+		try {
+			return Double.parseDouble(remaining.trim()) < 1;
+		} catch (NumberFormatException nfex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Retry-After is delay in seconds or HTTP date.
+	 */
+	private static long parseRetryAfter(String value) {
+		if (value == null || value.isBlank()) {
+			return -1;
+		}
+		value = value.trim();
+		try {
+			return Math.max(0, (long) (Double.parseDouble(value) * 1000));
+		} catch (NumberFormatException nfex) {
+			// Try HTTP date
+		}
+		try {
+			Instant time = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+			return Math.max(0, time.toEpochMilli() - System.currentTimeMillis());
+		} catch (DateTimeParseException dtpex) {
+			return -1;
+		}
+	}
+
+	/**
+	 * X-RateLimit-Reset is ISO date (Atlassian), epoch seconds or seconds from now.
+	 */
+	private static long parseReset(String value) {
+		if (value == null || value.isBlank()) {
+			return -1;
+		}
+		value = value.trim();
+		try {
+			double number = Double.parseDouble(value);
+			if (number > EPOCH_SECONDS_THRESHOLD) {
+				return Math.max(0, (long) (number * 1000) - System.currentTimeMillis());
+			}
+			return Math.max(0, (long) (number * 1000));
+		} catch (NumberFormatException nfex) {
+			// Try ISO date
+		}
+		try {
+			Instant time = OffsetDateTime.parse(value, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant();
+			return Math.max(0, time.toEpochMilli() - System.currentTimeMillis());
+		} catch (DateTimeParseException dtpex) {
+			return -1;
+		}
+	}
+}
@@ -1,12 +1,14 @@
 package com.igsl.rest;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
 import java.util.List;
 
 import javax.ws.rs.core.Response;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -43,23 +45,61 @@ public class SinglePage<T> extends Pagination<T> {
 	@Override
 	public void setResponse(Response response, ObjectMapper om) 
 			throws JsonProcessingException, JsonMappingException, IOException {
-		JsonNode node = om.readTree(response.readEntity(String.class));
+		try (InputStream in = response.readEntity(InputStream.class)) {
+			parse(in, om);
+		}
+	}
+	
+	@Override
+	public void parse(InputStream in, ObjectMapper om) throws IOException {
+		values = null;
+		if (streaming) {
+			parseStream(in, om);
+		} else {
+			parseTree(in, om);
+		}
+	}
+	
+	/**
+	 * Bind values as they are read, skipping other attributes.
+	 * Same result as parseTree(): JSON null gives a list containing null. 
+	 * Except an empty body gives no values, where parseTree() fails.
+	 */
+	private void parseStream(InputStream in, ObjectMapper om) throws IOException {
+		try (JsonParser parser = om.getFactory().createParser(in)) {
+			JsonToken token = parser.nextToken();
+			if (token == null) {
+				return;
+			}
+			if (attributeName == null) {
+				// Get top-level array or item
+				values = readValues(parser, om);
+				return;
+			}
+			if (token != JsonToken.START_OBJECT) {
+				return;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+				token = parser.nextToken();
+				if (attributeName.equals(name)) {
+					values = readValues(parser, om);
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+	}
+	
+	private void parseTree(InputStream in, ObjectMapper om) throws IOException {
+		JsonNode node = readTree(in, om);
 		if (node != null) {
 			if (attributeName != null) {
 				node = node.get(attributeName);
 			}
 			if (node != null) {
 				// Get top-level array or item
-				values = new ArrayList<>();
-				if (node.isArray()) {
-					for (JsonNode item : node) {
-						T value = om.treeToValue(item, dataClass);
-						values.add(value);
-					}
-				} else {
-					T value = om.treeToValue(node, dataClass);
-					values.add(value);
-				}
+				values = treeToValues(node, om);
 			}
 		}
 	}
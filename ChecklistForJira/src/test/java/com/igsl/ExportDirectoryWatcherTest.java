@@ -0,0 +1,60 @@
+package com.igsl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ExportDirectoryWatcherTest {
+
+	@TempDir
+	Path dir;
+
+	@AfterEach
+	public void closeWatchers() {
+		ExportDirectoryWatcher.closeAll();
+	}
+
+	private static Config scanConfig() {
+		Config conf = new Config();
+		conf.setExportDirWatchMode(ExportDirectoryWatcher.MODE_SCAN);
+		conf.setExportDirScanMinMS(50);
+		conf.setExportDirScanMaxMS(100);
+		return conf;
+	}
+
+	@Test
+	public void deliversExistingFiles() throws Exception {
+		Path file = Files.createFile(dir.resolve("customfield_1-2-0.gz"));
+		Files.createFile(dir.resolve("customfield_1-3-0.gz"));
+		try (ExportDirectoryWatcher.Subscription sub = ExportDirectoryWatcher.register(
+				scanConfig(), Arrays.asList(dir), "1", "2")) {
+			assertEquals(file, sub.poll(1, TimeUnit.SECONDS));
+			assertNull(sub.poll(300, TimeUnit.MILLISECONDS));
+		}
+	}
+
+	@Test
+	public void deliversFilesOfAnyDirectory() throws Exception {
+		Path node1 = Files.createDirectory(dir.resolve("node1"));
+		Path node2 = Files.createDirectory(dir.resolve("node2"));
+		try (ExportDirectoryWatcher.Subscription sub = ExportDirectoryWatcher.register(
+				scanConfig(), Arrays.asList(node1, node2), "1", "2")) {
+			Path file = write(node2.resolve("customfield_1-2-0.gz"));
+			assertEquals(file.toAbsolutePath().normalize(),
+					sub.poll(5, TimeUnit.SECONDS).toAbsolutePath().normalize());
+		}
+	}
+
+	private static Path write(Path file) throws IOException {
+		return Files.write(file, new byte[] { 1 });
+	}
+}
@@ -0,0 +1,82 @@
+package com.igsl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.igsl.mybatis.CustomField;
+
+public class ExportJournalTest {
+
+	@TempDir
+	Path dir;
+
+	private static CustomField field(String fieldId) {
+		CustomField cf = new CustomField();
+		cf.setFieldId(fieldId);
+		return cf;
+	}
+
+	private Path write(String content) throws IOException {
+		Path file = dir.resolve("journal.tsv");
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void replaysLastStateOfEachContext() throws IOException {
+		Path file = write(
+				"1000\t1\t2\tTRIGGERED\thttp://jira/progress\n" +
+				"2000\t1\t2\tIN_PROGRESS\thttp://jira/progress\n" +
+				"5000\t1\t2\tVERIFIED\tcustomfield_1-2-0.gz|customfield_1-2-1.gz\n" +
+				"6000\t1\t3\tFAILED\tTimed out\n");
+		try (ExportJournal journal = ExportJournal.open(file)) {
+			ExportJournal.Entry entry = journal.get(field("1"), "2");
+			assertEquals(ExportJournal.State.VERIFIED, entry.getState());
+			assertEquals(Arrays.asList("customfield_1-2-0.gz", "customfield_1-2-1.gz"), entry.getFiles());
+			assertEquals(4000, entry.getDuration());
+			assertEquals(ExportJournal.State.FAILED, journal.get(field("1"), "3").getState());
+		}
+	}
+
+	@Test
+	public void ignoresCutOffLastLine() throws IOException {
+		// Crash while writing VERIFIED, line still has 5 fields
+		Path file = write(
+				"1000\t1\t2\tTRIGGERED\thttp://jira/progress\n" +
+				"5000\t1\t2\tVERIFIED\tcustomfield_1-2-0.gz|customfield_1-2-1.g");
+		try (ExportJournal journal = ExportJournal.open(file)) {
+			ExportJournal.Entry entry = journal.get(field("1"), "2");
+			assertEquals(ExportJournal.State.TRIGGERED, entry.getState());
+			assertEquals(1000, entry.getStartTime());
+		}
+	}
+
+	@Test
+	public void ignoresCutOffOnlyLine() throws IOException {
+		Path file = write("5000\t1\t2\tVERIFIED\tcustomfield_1-2-0.g");
+		try (ExportJournal journal = ExportJournal.open(file)) {
+			assertNull(journal.get(field("1"), "2"));
+		}
+	}
+
+	@Test
+	public void appendsAfterCutOffLineOnItsOwnLine() throws IOException {
+		Path file = write("1000\t1\t2\tTRIGGERED\thttp://jira/progress\n5000\t1\t2\tVERI");
+		try (ExportJournal journal = ExportJournal.open(file)) {
+			journal.record(field("1"), "3", ExportJournal.State.FAILED, "Not verified");
+		}
+		try (ExportJournal journal = ExportJournal.open(file)) {
+			assertEquals(ExportJournal.State.TRIGGERED, journal.get(field("1"), "2").getState());
+			assertEquals(ExportJournal.State.FAILED, journal.get(field("1"), "3").getState());
+		}
+	}
+}
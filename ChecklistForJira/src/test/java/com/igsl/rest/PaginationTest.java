@@ -0,0 +1,167 @@
+package com.igsl.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streaming and JsonNode tree parsing of canned page bodies must give the same result.
+ */
+public class PaginationTest {
+
+	private static final ObjectMapper OM = RestUtil.getObjectMapper();
+
+	private static List<String> ids(List<Project> list) {
+		if (list == null) {
+			return null;
+		}
+		List<String> result = new ArrayList<>();
+		for (Project p : list) {
+			result.add((p == null)? null : p.getInternalId());
+		}
+		return result;
+	}
+
+	private static List<String> parse(Pagination<Project> pagination, boolean streaming, String body)
+			throws IOException {
+		pagination.streaming(streaming);
+		pagination.parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), OM);
+		return ids(pagination.getObjects());
+	}
+
+	/**
+	 * Parse with both modes, assert they agree and return the result.
+	 */
+	private static List<String> singlePage(String attributeName, String body) throws IOException {
+		List<String> tree = parse(new SinglePage<>(Project.class, attributeName), false, body);
+		List<String> stream = parse(new SinglePage<>(Project.class, attributeName), true, body);
+		assertEquals(tree, stream, "Body: " + body);
+		return stream;
+	}
+
+	private static Paged<Project> paged(boolean streaming, String body) throws IOException {
+		Paged<Project> paged = new Paged<>(Project.class);
+		parse(paged, streaming, body);
+		return paged;
+	}
+
+	/**
+	 * Parse with both modes, assert they agree and return the streaming result.
+	 */
+	private static Paged<Project> paged(String body) throws IOException {
+		Paged<Project> tree = paged(false, body);
+		Paged<Project> stream = paged(true, body);
+		assertEquals(ids(tree.getObjects()), ids(stream.getObjects()), "Body: " + body);
+		assertEquals(tree.hasMore(), stream.hasMore(), "Body: " + body);
+		return stream;
+	}
+
+	@Test
+	public void singlePageArray() throws IOException {
+		assertEquals(Arrays.asList("1", "2"), singlePage(null, "[{\"id\":\"1\"},{\"id\":\"2\",\"extra\":[1,2]}]"));
+	}
+
+	@Test
+	public void singlePageItem() throws IOException {
+		assertEquals(Arrays.asList("1"), singlePage(null, "{\"id\":\"1\",\"lead\":{\"id\":\"x\"}}"));
+	}
+
+	@Test
+	public void singlePageAttribute() throws IOException {
+		assertEquals(Arrays.asList("1", "2"),
+				singlePage("v", "{\"other\":{\"v\":[{\"id\":\"x\"}]},\"v\":[{\"id\":\"1\"},{\"id\":\"2\"}],\"after\":1}"));
+		assertEquals(Arrays.asList("1"), singlePage("v", "{\"v\":{\"id\":\"1\"}}"));
+	}
+
+	@Test
+	public void singlePageNull() throws IOException {
+		assertEquals(Collections.singletonList(null), singlePage(null, "null"));
+		assertEquals(Collections.singletonList(null), singlePage("v", "{\"v\":null}"));
+		assertEquals(Collections.singletonList(null), singlePage("v", "{\"v\":[null]}"));
+		assertEquals(Collections.singletonList(null), singlePage(null, "[null]"));
+	}
+
+	@Test
+	public void singlePageNoAttribute() throws IOException {
+		assertNull(singlePage("v", "{\"x\":1}"));
+		assertNull(singlePage("v", "null"));
+		assertNull(singlePage("v", "[{\"id\":\"1\"}]"));
+		assertNull(singlePage("v", ""));
+	}
+
+	@Test
+	public void singlePageEmptyBodyStreaming() throws IOException {
+		// Only difference: tree parsing fails on empty body
+		assertNull(parse(new SinglePage<>(Project.class, null), true, ""));
+	}
+
+	@Test
+	public void pagedTotalBeforeValues() throws IOException {
+		Paged<Project> page = paged("{\"startAt\":0,\"total\":3,\"values\":[{\"id\":\"1\"},{\"id\":\"2\"}]}");
+		assertEquals(Arrays.asList("1", "2"), ids(page.getObjects()));
+		assertTrue(page.hasMore());
+	}
+
+	@Test
+	public void pagedTotalAfterValues() throws IOException {
+		Paged<Project> page = paged("{\"values\":[{\"id\":\"1\"},{\"id\":\"2\"}],\"total\":3,\"isLast\":false}");
+		assertEquals(Arrays.asList("1", "2"), ids(page.getObjects()));
+		assertTrue(page.hasMore());
+		page = paged("{\"values\":[{\"id\":\"1\"},{\"id\":\"2\"}],\"total\":2}");
+		assertFalse(page.hasMore());
+	}
+
+	@Test
+	public void pagedWithoutTotal() throws IOException {
+		// More pages until one is empty
+		assertTrue(paged("{\"values\":[{\"id\":\"1\"}]}").hasMore());
+		assertFalse(paged("{\"values\":[]}").hasMore());
+	}
+
+	@Test
+	public void pagedNullValues() throws IOException {
+		assertEquals(Collections.singletonList(null), ids(paged("{\"total\":1,\"values\":null}").getObjects()));
+		assertEquals(Arrays.asList("1", null), ids(paged("{\"total\":2,\"values\":[{\"id\":\"1\"},null]}").getObjects()));
+	}
+
+	@Test
+	public void pagedNoValuesAttribute() throws IOException {
+		// Both modes agree on hasMore, asserted in paged()
+		assertNull(paged("{\"total\":5,\"other\":[{\"id\":\"1\"}]}").getObjects());
+		assertNull(paged("{\"other\":[{\"id\":\"1\"}],\"total\":5}").getObjects());
+	}
+
+	@Test
+	public void pagedSkipsNestedValues() throws IOException {
+		Paged<Project> page = paged(
+				"{\"nested\":{\"values\":[{\"id\":\"x\"}],\"total\":99},\"total\":1,\"values\":[{\"id\":\"1\"}]}");
+		assertEquals(Arrays.asList("1"), ids(page.getObjects()));
+		assertFalse(page.hasMore());
+	}
+
+	@Test
+	public void remainingPagesKeepStreaming() throws IOException {
+		Paged<Project> page = new Paged<>(Project.class);
+		page.streaming(false);
+		page.parse(new ByteArrayInputStream(
+				"{\"total\":5,\"values\":[{\"id\":\"1\"},{\"id\":\"2\"}]}".getBytes(StandardCharsets.UTF_8)), OM);
+		List<Paged<Project>> remaining = page.getRemainingPages();
+		assertEquals(2, remaining.size());
+		for (Paged<Project> p : remaining) {
+			assertFalse(p.streaming);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.igsl.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class RateLimiterTest {
+
+	@Test
+	public void noLimitDoesNotWait() throws InterruptedException {
+		RateLimiter limiter = RateLimiter.get("nolimit.example.com", 0, 1000);
+		for (int i = 0; i < 100; i++) {
+			limiter.acquire();
+		}
+		assertEquals(0, limiter.getWaitCount());
+	}
+
+	@Test
+	public void noLimitStillHonoursPenalty() throws InterruptedException {
+		RateLimiter limiter = RateLimiter.get("penalized.example.com", 0, 1000);
+		limiter.penalize(200);
+		long start = System.nanoTime();
+		limiter.acquire();
+		long waitedMS = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(waitedMS >= 150, "Waited " + waitedMS + " ms");
+		assertEquals(1, limiter.getWaitCount());
+	}
+
+	@Test
+	public void limitSpacesCallsAfterBurst() throws InterruptedException {
+		// 5 calls at once, then one every 20 ms
+		RateLimiter limiter = RateLimiter.get("limited.example.com", 5, 100);
+		long start = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			limiter.acquire();
+		}
+		long elapsedMS = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(elapsedMS >= 80, "Elapsed " + elapsedMS + " ms");
+	}
+}
@@ -0,0 +1,118 @@
+package com.igsl.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * requestAllPages() against a local stub serving canned pages of {@link #TOTAL} projects.
+ */
+public class RestUtilPagingTest {
+
+	private static final int TOTAL = 95;
+	private static final int PAGE_SIZE = 10;
+
+	private HttpServer server;
+	// Page at this offset returns SHORT_SIZE items only, -1 for none
+	private volatile int shortPageAt = -1;
+	private static final int SHORT_SIZE = 7;
+
+	@BeforeEach
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/projects", this::page);
+		server.start();
+	}
+
+	@AfterEach
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	private void page(HttpExchange exchange) throws IOException {
+		Map<String, String> query = new HashMap<>();
+		String rawQuery = exchange.getRequestURI().getQuery();
+		if (rawQuery != null) {
+			for (String pair : rawQuery.split("&")) {
+				String[] kv = pair.split("=", 2);
+				query.put(kv[0], (kv.length > 1)? kv[1] : "");
+			}
+		}
+		int startAt = Integer.parseInt(query.getOrDefault(Paged.DEFAULT_START_AT, "0"));
+		int size = (startAt == shortPageAt)? SHORT_SIZE : PAGE_SIZE;
+		StringBuilder body = new StringBuilder();
+		body.append("{\"startAt\":").append(startAt).append(",\"values\":[");
+		for (int i = startAt; i < Math.min(TOTAL, startAt + size); i++) {
+			if (i > startAt) {
+				body.append(",");
+			}
+			body.append("{\"id\":\"").append(i).append("\",\"key\":\"K").append(i).append("\"}");
+		}
+		// Total after values as some Jira endpoints do
+		body.append("],\"total\":").append(TOTAL).append("}");
+		byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private List<String> requestAll(int pageThreadCount, boolean streaming) throws Exception {
+		List<Project> list = RestUtil.getInstance(Project.class)
+				.scheme("http")
+				.host("localhost:" + server.getAddress().getPort())
+				.path("/projects")
+				.parallelPages(pageThreadCount)
+				.pagination(new Paged<Project>(Project.class).streaming(streaming))
+				.requestAllPages();
+		List<String> ids = new ArrayList<>();
+		for (Project p : list) {
+			ids.add(p.getInternalId());
+		}
+		return ids;
+	}
+
+	private static List<String> expected() {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < TOTAL; i++) {
+			ids.add(Integer.toString(i));
+		}
+		return ids;
+	}
+
+	@Test
+	public void sequentialPages() throws Exception {
+		assertEquals(expected(), requestAll(1, true));
+		assertEquals(expected(), requestAll(1, false));
+	}
+
+	@Test
+	public void parallelPagesInOrder() throws Exception {
+		assertEquals(expected(), requestAll(4, true));
+		assertEquals(expected(), requestAll(4, false));
+	}
+
+	@Test
+	public void shortPageFallsBackToSequential() throws Exception {
+		shortPageAt = 30;
+		assertEquals(expected(), requestAll(4, true));
+		assertEquals(expected(), requestAll(1, true));
+	}
+}